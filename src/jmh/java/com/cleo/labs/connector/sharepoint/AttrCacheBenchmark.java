@@ -0,0 +1,77 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link AttrCache} lookups and updates from several threads at once.
+ * The cache is filled with {@code entries} files in one folder, all of
+ * which fit under the default spec.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class AttrCacheBenchmark {
+
+    private static final String CLIENTKEY = "user@https://example.sharepoint.com/sites/bench";
+    private static final Optional<BasicFileAttributeView> MISSING = Optional.empty();
+
+    @Param({"1000", "10000"})
+    public int entries;
+
+    private Path folder;
+    private Path[] paths;
+    private BasicFileAttributeView attr;
+
+    @Setup
+    public void setup() {
+        AttrCache.update("");
+        folder = new Path("Shared Documents/inbound");
+        paths = new Path[entries];
+        attr = new SharePointFileAttributes(1024L, new Date());
+        for (int i = 0; i < entries; i++) {
+            paths[i] = folder.child("file" + i + ".txt");
+            AttrCache.put(CLIENTKEY, paths[i], attr);
+        }
+    }
+
+    private Path any() {
+        return paths[ThreadLocalRandom.current().nextInt(paths.length)];
+    }
+
+    @Benchmark
+    public Optional<BasicFileAttributeView> get() throws Exception {
+        return AttrCache.get(CLIENTKEY, any(), () -> MISSING);
+    }
+
+    @Benchmark
+    public void put() {
+        AttrCache.put(CLIENTKEY, any(), attr);
+    }
+
+    @Benchmark
+    public void invalidate() {
+        AttrCache.invalidate(CLIENTKEY, folder);
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reading the attributes an ATTR returns.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttributesBenchmark {
+
+    private final SharePointAttributes file = new SharePointFileAttributes(1024L, new Date());
+    private final SharePointAttributes folder = new SharePointFolderAttributes(new Date());
+
+    private static void read(SharePointAttributes attr, Blackhole bh) {
+        bh.consume(attr.isDirectory());
+        bh.consume(attr.isRegularFile());
+        bh.consume(attr.size());
+        bh.consume(attr.lastModifiedTime());
+        bh.consume(attr.creationTime());
+    }
+
+    @Benchmark
+    public void file(Blackhole bh) {
+        read(file, bh);
+    }
+
+    @Benchmark
+    public void folder(Blackhole bh) {
+        read(folder, bh);
+    }
+
+}
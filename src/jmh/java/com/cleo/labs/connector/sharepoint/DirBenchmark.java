@@ -0,0 +1,64 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cleo.connector.api.directory.Entry;
+
+/**
+ * Building the DIR entries for a synthetic folder of {@code items} files,
+ * as done for each page of a listing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DirBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int items;
+
+    private Path folder;
+    private String[] names;
+    private long[] sizes;
+    private Date modified;
+
+    @Setup
+    public void setup() {
+        folder = new Path("Shared Documents/inbound");
+        names = new String[items];
+        sizes = new long[items];
+        for (int i = 0; i < items; i++) {
+            names[i] = "file" + i + ".txt";
+            sizes[i] = i;
+        }
+        modified = new Date();
+    }
+
+    @Benchmark
+    public List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            entries.add(SharePointConnectorClient.entry(folder.child(names[i]),
+                    new SharePointFileAttributes(sizes[i], modified)));
+        }
+        return entries;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing and navigating {@link Path}s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int depth;
+
+    private String string;
+    private Path path;
+
+    @Setup
+    public void setup() {
+        StringBuilder s = new StringBuilder("Shared Documents");
+        for (int i = 1; i < depth; i++) {
+            s.append("/folder").append(i);
+        }
+        string = s.toString();
+        path = new Path(string);
+    }
+
+    @Benchmark
+    public Path parse() {
+        return new Path(string);
+    }
+
+    @Benchmark
+    public Path child() {
+        return path.child("file.txt");
+    }
+
+    @Benchmark
+    public Path parent() {
+        return path.parent();
+    }
+
+    @Benchmark
+    public String string() {
+        return path.toString();
+    }
+
+    @Benchmark
+    public String childString() {
+        return path.child("file.txt").toString();
+    }
+
+    @Benchmark
+    public boolean equal() {
+        return path.equals(new Path(string));
+    }
+
+}
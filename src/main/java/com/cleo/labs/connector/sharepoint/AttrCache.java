@@ -1,13 +1,30 @@
 package com.cleo.labs.connector.sharepoint;
 
 import java.nio.file.attribute.BasicFileAttributeView;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import com.google.common.base.Strings;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 
+/**
+ * A cache of file and folder attributes, keyed by client key and path.  A
+ * sorted index of the cached keys keeps each folder's descendants
+ * contiguous, so that a whole subtree can be invalidated or moved without
+ * scanning the cache.
+ */
 public class AttrCache {
 
     /**
@@ -17,9 +34,70 @@ public class AttrCache {
 
     private static String spec = null;
 
-    private static Cache<String,Optional<BasicFileAttributeView>> cache = update(DEFAULT_SPEC);
+    /**
+     * The keys in the cache, sorted.  A key is added after its entry is
+     * cached and removed after its entry is removed, so the index may
+     * briefly hold extra keys but does not miss any.
+     */
+    private static final ConcurrentSkipListSet<Key> keys = new ConcurrentSkipListSet<>();
+
+    private static final RemovalListener<Key,Optional<BasicFileAttributeView>> unindex =
+            new RemovalListener<Key,Optional<BasicFileAttributeView>>() {
+        @Override
+        public void onRemoval(RemovalNotification<Key,Optional<BasicFileAttributeView>> notification) {
+            Key key = notification.getKey();
+            if (notification.wasEvicted()) {
+                stats(key.clientkey).evicted();
+            }
+            keys.remove(key);
+            Cache<Key,Optional<BasicFileAttributeView>> current = cache;
+            if (current!=null && current.asMap().containsKey(key)) {
+                // cached again while we were removing it
+                keys.add(key);
+            }
+        }
+    };
+
+    private static final ConcurrentMap<String,AttrCacheStats> stats = new ConcurrentHashMap<>();
+
+    private static Cache<Key,Optional<BasicFileAttributeView>> cache = update(DEFAULT_SPEC);
+
+    /**
+     * Recent folder listings made to prefetch sibling attributes, keyed
+     * like the attributes of the folder.  These are held just long enough
+     * for a burst of ATTRs or PUTs in one folder to share a single listing,
+     * and files written meanwhile are added to them.
+     */
+    private static final Cache<Key,Optional<Map<String,BasicFileAttributeView>>> listings =
+            CacheBuilder.newBuilder()
+                .maximumSize(100)
+                .expireAfterWrite(5, TimeUnit.SECONDS)
+                .build();
 
-    public static synchronized Cache<String,Optional<BasicFileAttributeView>> update(String newspec) {
+    /**
+     * The spec each connection last configured, so that connections
+     * configured differently do not rebuild the cache each time they
+     * take turns.
+     */
+    private static final ConcurrentMap<String,String> configured = new ConcurrentHashMap<>();
+
+    /**
+     * Configures the cache spec for a connection.  There is one cache for
+     * the whole process, so the spec is process-wide: it is only changed
+     * when a connection is first configured or its spec is edited, and
+     * then the last such connection sets it for all.
+     *
+     * @param clientkey the client key
+     * @param newspec the spec, blank for the default or "disabled"
+     */
+    public static void configure(String clientkey, String newspec) {
+        String previous = configured.put(clientkey, Strings.nullToEmpty(newspec));
+        if (!Strings.nullToEmpty(newspec).equals(previous)) {
+            update(newspec);
+        }
+    }
+
+    public static synchronized Cache<Key,Optional<BasicFileAttributeView>> update(String newspec) {
         // if the value in the config file is null or missing or blank, this means "default"
         // if the value in the config file is "disabled", this means null
         if (Strings.isNullOrEmpty(newspec)) {
@@ -34,9 +112,11 @@ public class AttrCache {
         } else if (newspec==null) {
             spec = null ;
             cache = null;
+            keys.clear();
             // logger.debug("Amazon metadata cache disabled");
         } else {
-            Cache<String,Optional<BasicFileAttributeView>> newcache = CacheBuilder.from(newspec)
+            Cache<Key,Optional<BasicFileAttributeView>> newcache = CacheBuilder.from(newspec)
+                .removalListener(unindex)
                 .build();
             if (cache!=null) {
                 newcache.putAll(cache.asMap());
@@ -48,28 +128,287 @@ public class AttrCache {
         return cache;
     }
 
-    private static String key(String clientkey, Path path) {
-        return clientkey + "[" + path.toString() + "]";
+    /**
+     * A cache key: a path for a client key.  Keys sort by client key and
+     * then by path, so the descendants of a path sort contiguously.
+     */
+    public static final class Key implements Comparable<Key> {
+        private final String clientkey;
+        private final Path path;
+
+        public Key(String clientkey, Path path) {
+            this.clientkey = clientkey;
+            this.path = path;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int c = clientkey.compareTo(other.clientkey);
+            return c != 0 ? c : path.compareTo(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * clientkey.hashCode() + path.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return path.equals(other.path) && clientkey.equals(other.clientkey);
+        }
+
+        @Override
+        public String toString() {
+            return clientkey + "[" + path + "]";
+        }
+
+        /**
+         * Returns whether this key is for {@code path} or one of its
+         * descendants under {@code clientkey}.
+         */
+        boolean within(String clientkey, Path path) {
+            return this.path.startsWith(path) && this.clientkey.equals(clientkey);
+        }
+    }
+
+    /**
+     * Returns the cached keys of all descendants of a path.
+     */
+    private static List<Key> tree(String clientkey, Path path) {
+        Path successor = path.successor();
+        Key to = successor == null ? new Key(clientkey + '\0', path) : new Key(clientkey, successor);
+        return new ArrayList<>(keys.subSet(new Key(clientkey, path), false, to, false));
+    }
+
+    /**
+     * Returns the current cache spec, or "disabled".
+     *
+     * @return the spec
+     */
+    public static String spec() {
+        String current = spec;
+        return current==null ? "disabled" : current;
+    }
+
+    /**
+     * Returns the statistics for a connection, registering them with JMX
+     * when first used.
+     *
+     * @param clientkey the client key
+     * @return the statistics
+     */
+    public static AttrCacheStats stats(String clientkey) {
+        AttrCacheStats clientstats = stats.get(clientkey);
+        if (clientstats==null) {
+            AttrCacheStats newstats = new AttrCacheStats(clientkey);
+            clientstats = stats.putIfAbsent(clientkey, newstats);
+            if (clientstats==null) {
+                clientstats = newstats.register();
+            }
+        }
+        return clientstats;
+    }
+
+    /**
+     * Returns the number of entries cached for a connection.
+     *
+     * @param clientkey the client key
+     * @return the number of entries
+     */
+    public static int size(String clientkey) {
+        Path root = new Path();
+        return keys.subSet(new Key(clientkey, root), true, new Key(clientkey + '\0', root), false).size();
     }
 
     public static Optional<BasicFileAttributeView> get(String clientkey, Path path,
             Callable<Optional<BasicFileAttributeView>> getter) throws Exception {
+        AttrCacheStats clientstats = stats(clientkey);
+        boolean[] loaded = {false};
+        Callable<Optional<BasicFileAttributeView>> loader = () -> {
+            loaded[0] = true;
+            long start = System.nanoTime();
+            try {
+                return getter.call();
+            } finally {
+                clientstats.miss(System.nanoTime()-start);
+            }
+        };
         if (cache!=null) {
-            return cache.get(key(clientkey, path), getter);
+            Key key = new Key(clientkey, path);
+            Optional<BasicFileAttributeView> attr = cache.get(key, loader);
+            keys.add(key);
+            if (!loaded[0]) {
+                clientstats.hit();
+            }
+            return attr;
         } else {
-            return getter.call();
+            return loader.call();
+        }
+    }
+
+    /**
+     * Returns the cached attributes of a path, without loading them or
+     * counting a hit or miss.
+     *
+     * @param clientkey the client key
+     * @param path the path
+     * @return the attributes, or empty if they are not cached or the path
+     * is cached as missing
+     */
+    public static Optional<BasicFileAttributeView> peek(String clientkey, Path path) {
+        Cache<Key,Optional<BasicFileAttributeView>> current = cache;
+        if (current==null) {
+            return Optional.empty();
         }
+        Optional<BasicFileAttributeView> attr = current.getIfPresent(new Key(clientkey, path));
+        return attr==null ? Optional.empty() : attr;
     }
 
     public static void put(String clientkey, Path path, BasicFileAttributeView attr) {
         if (cache!=null) {
-            cache.put(key(clientkey, path), Optional.of(attr));
+            Key key = new Key(clientkey, path);
+            cache.put(key, Optional.of(attr));
+            keys.add(key);
+        }
+    }
+
+    /**
+     * Lists a folder to prefetch the attributes of all of its children,
+     * sharing one listing among concurrent and closely following callers.
+     * The {@code lister} returns the attributes of every child by name, or
+     * empty if the folder was too large to list completely.
+     *
+     * @param clientkey the client key
+     * @param folder the folder
+     * @param lister lists the folder
+     * @return the attributes of the children, or empty
+     * @throws Exception
+     */
+    public static Optional<Map<String,BasicFileAttributeView>> listing(String clientkey, Path folder,
+            Callable<Optional<Map<String,BasicFileAttributeView>>> lister) throws Exception {
+        return listings.get(new Key(clientkey, folder), lister);
+    }
+
+    /**
+     * Returns up to {@code count} of the cached siblings that follow a path
+     * in its folder, in path order, skipping those {@code filter} rejects.
+     *
+     * @param clientkey the client key
+     * @param path the path
+     * @param count the most siblings to return
+     * @param filter selects the siblings by their attributes
+     * @return the siblings and their attributes
+     */
+    public static Map<Path,SharePointAttributes> following(String clientkey, Path path, int count,
+            Predicate<SharePointAttributes> filter) {
+        Map<Path,SharePointAttributes> siblings = new LinkedHashMap<>();
+        Cache<Key,Optional<BasicFileAttributeView>> current = cache;
+        if (current==null || path.empty() || count<=0) {
+            return siblings;
+        }
+        Path successor = path.parent().successor();
+        Key to = successor == null ? new Key(clientkey + '\0', new Path()) : new Key(clientkey, successor);
+        for (Key key : keys.subSet(new Key(clientkey, path), false, to, false)) {
+            if (siblings.size() >= count) {
+                break;
+            }
+            if (key.path.size() != path.size()) {
+                continue; // a descendant of a sibling folder
+            }
+            Optional<BasicFileAttributeView> attr = current.getIfPresent(key);
+            if (attr!=null && attr.isPresent() && attr.get() instanceof SharePointAttributes
+                    && filter.test((SharePointAttributes) attr.get())) {
+                siblings.put(key.path, (SharePointAttributes) attr.get());
+            }
+        }
+        return siblings;
+    }
+
+    /**
+     * Caches the attributes of a file written through the connector and
+     * adds it to the listing of its folder, if there is one, so that the
+     * listing remains a complete snapshot of the folder for the writes that
+     * follow.  The attributes of the folder itself are invalidated.  If the
+     * new attributes are not known, the file and the listing are invalidated
+     * instead.
+     *
+     * @param clientkey the client key
+     * @param path the file
+     * @param attr its new attributes, or null if not known
+     */
+    public static void written(String clientkey, Path path, BasicFileAttributeView attr) {
+        if (attr==null) {
+            invalidate(clientkey, path);
+            invalidate(clientkey, path.parent());
+            return;
+        }
+        Key folder = new Key(clientkey, path.parent());
+        ReadAhead.invalidate(clientkey, path);
+        put(clientkey, path, attr);
+        Optional<Map<String,BasicFileAttributeView>> listing = listings.getIfPresent(folder);
+        if (listing!=null && listing.isPresent()) {
+            listing.get().put(path.name(), attr);
+        }
+        if (cache!=null) {
+            cache.invalidate(folder);
         }
     }
 
     public static void invalidate(String clientkey, Path path) {
+        Key key = new Key(clientkey, path);
+        ReadAhead.invalidate(clientkey, path);
+        listings.invalidate(key);
+        if (cache!=null) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Invalidates a path and all of its descendants.
+     *
+     * @param clientkey the client key
+     * @param path the path
+     */
+    public static void invalidateTree(String clientkey, Path path) {
+        ReadAhead.invalidateTree(clientkey, path);
+        listings.asMap().keySet().removeIf((key) -> key.within(clientkey, path));
+        if (cache!=null) {
+            cache.invalidate(new Key(clientkey, path));
+            cache.invalidateAll(tree(clientkey, path));
+        }
+    }
+
+    /**
+     * Moves the cached attributes of a path and its descendants to a new
+     * path, replacing anything cached at or below the new path.
+     *
+     * @param clientkey the client key
+     * @param from the old path
+     * @param to the new path
+     */
+    public static void move(String clientkey, Path from, Path to) {
         if (cache!=null) {
-            cache.invalidate(key(clientkey, path));
+            invalidateTree(clientkey, to);
+            Optional<BasicFileAttributeView> attr = cache.getIfPresent(new Key(clientkey, from));
+            if (attr!=null && attr.isPresent()) {
+                put(clientkey, to, attr.get());
+            }
+            for (Key key : tree(clientkey, from)) {
+                attr = cache.getIfPresent(key);
+                if (attr!=null && attr.isPresent()) {
+                    Key moved = new Key(clientkey, key.path.move(from, to));
+                    cache.put(moved, attr);
+                    keys.add(moved);
+                }
+            }
+            invalidateTree(clientkey, from);
         }
     }
 
@@ -0,0 +1,99 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * {@link AttrCache} statistics for a single connection (client key),
+ * published as an MBean named
+ * {@code com.cleo.labs.connector.sharepoint:type=AttrCache,name="clientkey"}.
+ */
+public class AttrCacheStats implements AttrCacheStatsMBean {
+    private final String clientkey;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AttrCacheStats(String clientkey) {
+        this.clientkey = clientkey;
+    }
+
+    /**
+     * Registers the statistics with the platform MBean server, quietly
+     * doing nothing if that fails.
+     *
+     * @return {@code this}
+     */
+    public AttrCacheStats register() {
+        try {
+            ObjectName name = new ObjectName("com.cleo.labs.connector.sharepoint:type=AttrCache,name="+ObjectName.quote(clientkey));
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            }
+        } catch (JMException | SecurityException e) {
+            // statistics are still available through toString()
+        }
+        return this;
+    }
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss(long nanos) {
+        misses.increment();
+        loadNanos.add(nanos);
+    }
+
+    public void evicted() {
+        evictions.increment();
+    }
+
+    @Override
+    public String getSpec() {
+        return AttrCache.spec();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        long hitCount = getHitCount();
+        long requestCount = hitCount + getMissCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public double getAverageLoadMillis() {
+        long loadCount = getMissCount();
+        return loadCount == 0 ? 0.0 : loadNanos.sum() / 1000000.0 / loadCount;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getSize() {
+        return AttrCache.size(clientkey);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d hitRate=%.3f averageLoad=%.1fms evictions=%d size=%d spec=%s",
+                getHitCount(), getMissCount(), getHitRate(), getAverageLoadMillis(), getEvictionCount(), getSize(), getSpec());
+    }
+}
@@ -0,0 +1,14 @@
+package com.cleo.labs.connector.sharepoint;
+
+/**
+ * The JMX view of {@link AttrCacheStats}.
+ */
+public interface AttrCacheStatsMBean {
+    String getSpec();
+    long getHitCount();
+    long getMissCount();
+    double getHitRate();
+    double getAverageLoadMillis();
+    long getEvictionCount();
+    long getSize();
+}
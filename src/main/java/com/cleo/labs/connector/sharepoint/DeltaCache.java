@@ -0,0 +1,104 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.cleo.connector.api.directory.Entry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.independentsoft.share.ChangeToken;
+
+/**
+ * Remembers the last listing of a folder together with the SharePoint
+ * change token current when it was taken, so that a later DIR of the same
+ * folder can ask for the changes since then instead of listing again.
+ * Snapshots are keyed like {@link AttrCache}, and the cache is bounded by
+ * the total number of entries held.
+ */
+public class DeltaCache {
+
+    /**
+     * The maximum number of entries held across all snapshots.
+     */
+    public static final long MAXIMUM_ENTRIES = 1000000L;
+
+    /**
+     * A folder listing and the change token it is current as of.
+     */
+    public static class Snapshot {
+        private final ChangeToken token;
+        private final List<Entry> entries;
+
+        public Snapshot(ChangeToken token, List<Entry> entries) {
+            this.token = token;
+            this.entries = Collections.unmodifiableList(entries);
+        }
+
+        public ChangeToken getToken() {
+            return token;
+        }
+
+        public List<Entry> getEntries() {
+            return entries;
+        }
+    }
+
+    /**
+     * A snapshot key: the {@link AttrCache} key of the folder, and whether
+     * the listing is recursive.
+     */
+    private static final class Key {
+        private final AttrCache.Key folder;
+        private final boolean recursive;
+
+        private Key(String clientkey, Path path, boolean recursive) {
+            this.folder = new AttrCache.Key(clientkey, path);
+            this.recursive = recursive;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * folder.hashCode() + (recursive ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return recursive == other.recursive && folder.equals(other.folder);
+        }
+
+        @Override
+        public String toString() {
+            return recursive ? folder + "/**" : folder.toString();
+        }
+    }
+
+    private static Cache<Key,Snapshot> cache = CacheBuilder.newBuilder()
+            .maximumWeight(MAXIMUM_ENTRIES)
+            .weigher(new Weigher<Key,Snapshot>() {
+                @Override
+                public int weigh(Key key, Snapshot snapshot) {
+                    return snapshot.entries.size() + 1;
+                }
+            })
+            .build();
+
+    public static Snapshot get(String clientkey, Path path, boolean recursive) {
+        return cache.getIfPresent(new Key(clientkey, path, recursive));
+    }
+
+    public static void put(String clientkey, Path path, boolean recursive, Snapshot snapshot) {
+        cache.put(new Key(clientkey, path, recursive), snapshot);
+    }
+
+    private DeltaCache() {
+    }
+
+}
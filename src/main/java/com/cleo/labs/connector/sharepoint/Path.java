@@ -1,73 +1,196 @@
 package com.cleo.labs.connector.sharepoint;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
 
-public class Path {
+/**
+ * An immutable path of names.  Each path points to its parent, so paths
+ * in the same folder share their prefix, and {@code child} and
+ * {@code parent} allocate nothing but the new node.  The hash code is
+ * computed once when the path is made and the string on first use.
+ * <p>
+ * Paths are ordered name by name from the root, with a path before its
+ * descendants, so the descendants of a path sort contiguously after it
+ * and before {@link #successor()}.
+ */
+public final class Path implements Comparable<Path> {
 
     static public final String DELIMITER = "/";
-    
-    private List<String> nodes;
 
-    private Path(List<String> nodes) {
-        this.nodes = nodes;
+    private static final Path ROOT = new Path(null, "");
+
+    private final Path parent;
+    private final String name;
+    private final int size;
+    private final int hash;
+    private String string;
+
+    private Path(Path parent, String name) {
+        this.parent = parent;
+        this.name = name;
+        this.size = parent == null ? 0 : parent.size + 1;
+        this.hash = parent == null ? 1 : 31 * parent.hash + name.hashCode();
+        this.string = parent == null ? "" : null;
     }
 
-    public Path(String...parse) {
-        this.nodes = new ArrayList<>();
+    private static Path parse(String...parse) {
+        Path path = ROOT;
         if (parse != null) {
             for (String node : parse) {
                 if (!Strings.isNullOrEmpty(node)) {
                     for (String element : node.split(DELIMITER)) {
                         if (!element.isEmpty()) {
-                            nodes.add(element);
+                            path = new Path(path, element);
                         }
                     }
                 }
             }
         }
+        return path;
+    }
+
+    public Path(String...parse) {
+        this(parse(parse));
+    }
+
+    private Path(Path copy) {
+        this.parent = copy.parent;
+        this.name = copy.name;
+        this.size = copy.size;
+        this.hash = copy.hash;
+        this.string = copy.string;
     }
 
     public int size() {
-        return nodes.size();
+        return size;
     }
 
     public boolean empty() {
-        return nodes.isEmpty();
+        return size == 0;
     }
 
     public Path parent() {
-        if (nodes.isEmpty()) {
-            return this;
-        } else {
-            return new Path(nodes.subList(0, nodes.size()-1));
-        }
+        return parent == null ? this : parent;
     }
 
     public Path child(String node) {
-        List<String> child = new ArrayList<>(nodes);
-        child.add(node);
-        return new Path(child);
+        return new Path(this, node);
     }
 
     public Path child(Path path) {
-        List<String> child = new ArrayList<>(nodes);
-        child.addAll(path.nodes);
-        return new Path(child);
+        return path.empty() ? this : child(path.parent).child(path.name);
     }
 
     public String name() {
-        if (nodes.isEmpty()) {
-            return "";
+        return name;
+    }
+
+    /**
+     * Returns the ancestor of this path with {@code size} names.
+     *
+     * @param size the number of names to keep
+     * @return the ancestor, or this path if it is no longer
+     */
+    public Path prefix(int size) {
+        Path path = this;
+        while (path.size > size) {
+            path = path.parent;
+        }
+        return path;
+    }
+
+    /**
+     * Returns whether {@code ancestor} is this path or one of its ancestors.
+     *
+     * @param ancestor the possible ancestor
+     * @return true if this path starts with {@code ancestor}
+     */
+    public boolean startsWith(Path ancestor) {
+        return ancestor.size <= size && prefix(ancestor.size).equals(ancestor);
+    }
+
+    /**
+     * Returns this path with its leading {@code from} replaced by {@code to}.
+     *
+     * @param from an ancestor of this path
+     * @param to the replacement
+     * @return the moved path
+     */
+    public Path move(Path from, Path to) {
+        if (size == from.size) {
+            return to;
+        }
+        return parent.move(from, to).child(name);
+    }
+
+    /**
+     * Returns the first path after all the descendants of this one, so
+     * that the descendants are those strictly between the two.  The root
+     * has no successor, and returns null.
+     *
+     * @return the successor, or null
+     */
+    public Path successor() {
+        return parent == null ? null : parent.child(name + '\0');
+    }
+
+    @Override
+    public int compareTo(Path other) {
+        if (size > other.size) {
+            int c = compareTo(prefix(other.size), other);
+            return c != 0 ? c : 1;
+        } else if (size < other.size) {
+            int c = compareTo(this, other.prefix(size));
+            return c != 0 ? c : -1;
+        }
+        return compareTo(this, other);
+    }
+
+    /**
+     * Compares two paths of the same size.
+     */
+    private static int compareTo(Path a, Path b) {
+        if (a == b || a.size == 0) {
+            return 0;
         }
-        return nodes.get(nodes.size()-1);
+        int c = compareTo(a.parent, b.parent);
+        return c != 0 ? c : a.name.compareTo(b.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Path)) {
+            return false;
+        }
+        Path a = this;
+        Path b = (Path) obj;
+        if (a.size != b.size) {
+            return false;
+        }
+        while (a != b) {
+            if (a.hash != b.hash || !a.name.equals(b.name)) {
+                return false;
+            }
+            a = a.parent;
+            b = b.parent;
+        }
+        return true;
     }
 
     @Override
     public String toString() {
-        return Joiner.on(DELIMITER).join(nodes);
+        String s = string;
+        if (s == null) {
+            s = parent.size == 0 ? name : parent.toString() + DELIMITER + name;
+            string = s;
+        }
+        return s;
     }
 }
@@ -0,0 +1,106 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.util.function.BooleanSupplier;
+
+import org.apache.http.HttpStatus;
+
+/**
+ * The choices a PUT makes as it goes: whether to update the existing file
+ * or create one, whether a create may overwrite, and which failures call
+ * for another attempt.  A plan belongs to a single PUT.
+ */
+public class PutPlan {
+
+    /**
+     * How many times a unique PUT picks the next name when the one it
+     * picked was taken before the file could be created.
+     */
+    public static final int UNIQUE_RETRIES = 3;
+
+    private final boolean unique;
+    private final boolean optimistic;
+    private final boolean listed;
+    private final boolean update;
+    private boolean checked = false;
+    private int conflicts = 0;
+
+    /**
+     * Plans a PUT.
+     *
+     * @param unique true for a unique ({@code -UNI}) PUT
+     * @param optimistic true to create the file overwriting anything there,
+     * without checking first
+     * @param listed true if the file was looked for in a folder listing,
+     * which may miss a file created since
+     * @param exists true if the file was found, and is to be updated
+     */
+    public PutPlan(boolean unique, boolean optimistic, boolean listed, boolean exists) {
+        this.unique = unique;
+        this.optimistic = optimistic && !unique;
+        this.listed = listed;
+        this.update = exists && !unique;
+    }
+
+    /**
+     * Returns whether to update the existing file rather than create one.
+     * Once an optimistic create is refused, the file is looked for first.
+     *
+     * @param exists looks for the file
+     * @return true to update the file
+     */
+    public boolean update(BooleanSupplier exists) {
+        return update || (checked && exists.getAsBoolean());
+    }
+
+    /**
+     * Returns whether a create may overwrite an existing file.  An
+     * optimistic PUT overwrites whatever is there.  A plain PUT overwrites a
+     * file a listing may have missed, or one a failed create may have
+     * created after all.  A unique PUT never overwrites, nor does a PUT
+     * whose optimistic create was refused.
+     *
+     * @param retry true if an earlier attempt failed
+     * @return the overwrite flag for the create
+     */
+    public boolean overwrite(boolean retry) {
+        if (checked) {
+            return false;
+        }
+        return optimistic || (!unique && (listed || retry));
+    }
+
+    /**
+     * Decides whether an optimistic create refused with {@code status}
+     * should be sent again, looking for the file first.  It is only done
+     * once, for a 404 or 409.
+     *
+     * @param status the status of the refusal
+     * @return true to send the content again
+     */
+    public boolean refused(int status) {
+        if (!optimistic || checked || (status != HttpStatus.SC_NOT_FOUND && status != HttpStatus.SC_CONFLICT)) {
+            return false;
+        }
+        checked = true;
+        return true;
+    }
+
+    /**
+     * Decides whether a unique PUT whose create failed found its name taken,
+     * and should try the next name, up to {@link #UNIQUE_RETRIES} times.
+     * A transient failure may have created the file itself, so only a
+     * permanent failure is checked.
+     *
+     * @param failure how the create failed
+     * @param exists looks for a file with the name
+     * @return true to pick the next name and send the content again
+     */
+    public boolean taken(Retrier.Failure failure, BooleanSupplier exists) {
+        if (!unique || conflicts >= UNIQUE_RETRIES || failure != Retrier.Failure.PERMANENT || !exists.getAsBoolean()) {
+            return false;
+        }
+        conflicts++;
+        return true;
+    }
+
+}
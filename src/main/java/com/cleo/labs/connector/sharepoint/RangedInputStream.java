@@ -0,0 +1,170 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+
+import com.independentsoft.share.ServiceException;
+
+/**
+ * An {@link InputStream} over a remote file of known length that fetches
+ * fixed-size byte ranges of it concurrently on the {@link Workers} pool,
+ * ahead of the reader, and returns them in order.  At most
+ * {@code parallelism} segments are requested or held at once.
+ */
+public class RangedInputStream extends InputStream {
+
+    /**
+     * Fetches a byte range of the remote file.
+     */
+    public interface RangeReader {
+        /**
+         * Returns exactly {@code length} bytes starting at {@code offset}.
+         *
+         * @param offset the offset of the first byte
+         * @param length the number of bytes
+         * @return the bytes
+         * @throws ServiceException
+         */
+        byte[] read(long offset, int length) throws ServiceException;
+    }
+
+    /**
+     * The total length in a {@code Content-Range} response header.
+     */
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes \\d+-\\d+/(\\d+)");
+
+    /**
+     * Returns the length of a file from the {@code Content-Range} header of
+     * a partial (206) response to a {@code Range} request.
+     *
+     * @param response the response, or null
+     * @return the length of the file, or -1 if the response is not a
+     * partial one with a complete {@code Content-Range}
+     */
+    public static long totalLength(HttpResponse response) {
+        if (response == null || response.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT) {
+            return -1;
+        }
+        Header contentRange = response.getFirstHeader("Content-Range");
+        Matcher m = contentRange == null ? null : CONTENT_RANGE.matcher(contentRange.getValue());
+        return m != null && m.matches() ? Long.parseLong(m.group(1)) : -1;
+    }
+
+    private final RangeReader reader;
+    private final long length;
+    private final int segmentSize;
+    private final int parallelism;
+    private final Deque<Future<byte[]>> ahead = new ArrayDeque<>();
+    private long next;
+    private byte[] segment;
+    private int position = 0;
+
+    /**
+     * Starts fetching the first segments of the file.
+     *
+     * @param reader fetches a byte range
+     * @param length the length of the file
+     * @param segmentSize the size of each range
+     * @param parallelism the number of ranges fetched at once
+     */
+    public RangedInputStream(RangeReader reader, long length, int segmentSize, int parallelism) {
+        this(reader, length, segmentSize, parallelism, new byte[0]);
+    }
+
+    /**
+     * Starts fetching the segments of the file that follow a first segment
+     * already read.
+     *
+     * @param reader fetches a byte range
+     * @param length the length of the file
+     * @param segmentSize the size of each range
+     * @param parallelism the number of ranges fetched at once
+     * @param first the first bytes of the file
+     */
+    public RangedInputStream(RangeReader reader, long length, int segmentSize, int parallelism, byte[] first) {
+        this.reader = reader;
+        this.length = length;
+        this.segmentSize = segmentSize;
+        this.parallelism = Math.max(1, parallelism);
+        this.segment = first;
+        this.next = first.length;
+        fill();
+    }
+
+    private void fill() {
+        while (ahead.size() < parallelism && next < length) {
+            long offset = next;
+            int size = (int) Math.min(segmentSize, length - offset);
+            ahead.add(Workers.submit(() -> reader.read(offset, size)));
+            next += size;
+        }
+    }
+
+    /**
+     * Moves on to the next segment, waiting for it if needed.
+     *
+     * @return false at the end of the file
+     * @throws IOException
+     */
+    private boolean advance() throws IOException {
+        while (position >= segment.length) {
+            Future<byte[]> future = ahead.poll();
+            if (future == null) {
+                return false;
+            }
+            try {
+                segment = Workers.get(future);
+            } catch (ServiceException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            position = 0;
+            fill();
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!advance()) {
+            return -1;
+        }
+        return segment[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!advance()) {
+            return -1;
+        }
+        int n = Math.min(len, segment.length - position);
+        System.arraycopy(segment, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return segment.length - position;
+    }
+
+    @Override
+    public void close() {
+        for (Future<byte[]> future : ahead) {
+            future.cancel(true);
+        }
+        ahead.clear();
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+
+/**
+ * The contents of small files read ahead of the GETs expected to ask for
+ * them.  A pickup job lists a folder and then gets its files one at a time,
+ * each GET waiting out a full round trip.  When a GET finds the files that
+ * follow it in the {@link AttrCache}, their contents are fetched
+ * concurrently on the {@link Workers} pool and held here briefly, so that
+ * the GETs that follow are served from memory.
+ * <p>
+ * Each read is used at most once, and is dropped when the attributes of its
+ * path are invalidated by a change made through the connector, or when its
+ * folder is listed again.  Changes made elsewhere are not seen, so a read
+ * is kept no longer than a folder listing is, and keeps the attributes the
+ * file was read for, which a GET that deletes the file checks first.  A
+ * read dropped before it is taken is cancelled, so that one not yet
+ * started never takes a worker or a connection.
+ */
+public class ReadAhead {
+
+    /**
+     * A file being read ahead, and the attributes it was read for.
+     */
+    public static class Read {
+        private final SharePointAttributes attributes;
+        private final Future<byte[]> content;
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+        public Read(SharePointAttributes attributes, Future<byte[]> content) {
+            this.attributes = attributes;
+            this.content = content;
+        }
+
+        public SharePointAttributes getAttributes() {
+            return attributes;
+        }
+
+        public Future<byte[]> getContent() {
+            return content;
+        }
+
+        /**
+         * Claims the read, either for the GET that takes it or to cancel
+         * it, whichever comes first.
+         *
+         * @return true if it was not claimed before
+         */
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * Reads not yet taken, keyed like the attributes of the file.
+     */
+    private static final Cache<AttrCache.Key,Read> contents =
+            CacheBuilder.newBuilder()
+                .maximumSize(100)
+                .expireAfterWrite(5, TimeUnit.SECONDS)
+                .removalListener((RemovalListener<AttrCache.Key,Read>) (removal) -> {
+                    if (removal.getValue().claim()) {
+                        removal.getValue().getContent().cancel(true);
+                    }
+                })
+                .build();
+
+    /**
+     * Starts reading a file on the {@link Workers} pool, unless it is
+     * already being read.
+     *
+     * @param clientkey the client key
+     * @param path the file
+     * @param attributes the cached attributes of the file
+     * @param reader reads the file
+     */
+    public static void fetch(String clientkey, Path path, SharePointAttributes attributes, Callable<byte[]> reader) {
+        try {
+            contents.get(new AttrCache.Key(clientkey, path), () -> new Read(attributes, Workers.submit(reader)));
+        } catch (ExecutionException e) {
+            // submitting does not fail
+        }
+    }
+
+    /**
+     * Removes and returns the read of a file, if one was started.
+     *
+     * @param clientkey the client key
+     * @param path the file
+     * @return the read, or null
+     */
+    public static Read take(String clientkey, Path path) {
+        AttrCache.Key key = new AttrCache.Key(clientkey, path);
+        Read read = contents.getIfPresent(key);
+        if (read == null || !read.claim()) {
+            return null;
+        }
+        contents.asMap().remove(key, read);
+        return read;
+    }
+
+    /**
+     * Drops the read of a file.
+     *
+     * @param clientkey the client key
+     * @param path the file
+     */
+    public static void invalidate(String clientkey, Path path) {
+        contents.invalidate(new AttrCache.Key(clientkey, path));
+    }
+
+    /**
+     * Drops the reads of a path and all of its descendants.
+     *
+     * @param clientkey the client key
+     * @param path the path
+     */
+    public static void invalidateTree(String clientkey, Path path) {
+        contents.asMap().keySet().removeIf((key) -> key.within(clientkey, path));
+    }
+
+    private ReadAhead() {
+    }
+
+}
@@ -0,0 +1,306 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLSession;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpConnectionMetrics;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * A pooling connection manager that keeps jshare from leaking connections.
+ * jshare throws a {@code ServiceException} for an error response without
+ * closing the response, so its connection would stay leased and the pool
+ * eventually run dry, hanging every later request on a shared
+ * {@code Service}.  The connections handed out by this manager read the
+ * body of an error response into memory as soon as it arrives, and
+ * HttpClient releases a connection whose response is not streamed straight
+ * away, whatever jshare does with the response afterwards.
+ * <p>
+ * jshare also reports a failed request only by its status line, so the
+ * manager records the head of the last response each thread received,
+ * letting a caller see headers such as {@code Retry-After}.
+ */
+public class ReclaimingConnectionManager implements HttpClientConnectionManager {
+
+    private final PoolingHttpClientConnectionManager pool;
+    private final TokenBucket limiter;
+    private final ThreadLocal<HttpResponse> responses = new ThreadLocal<>();
+    private volatile boolean retired = false;
+
+    /**
+     * Wraps a pool, taking a token from {@code limiter} before each request
+     * is given a connection.
+     *
+     * @param pool the pool
+     * @param limiter limits the request rate, or null for no limit
+     */
+    public ReclaimingConnectionManager(PoolingHttpClientConnectionManager pool, TokenBucket limiter) {
+        this.pool = pool;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Returns the last response received on the current thread since it
+     * last asked for a connection, without its entity.
+     *
+     * @return the response, or null if none was received
+     */
+    public HttpResponse getLastResponse() {
+        return responses.get();
+    }
+
+    /**
+     * Closes the idle connections in the pool and keeps no connection open
+     * once it is released from now on, for a {@code Service} that is no
+     * longer shared.  A client still holding the {@code Service} can go on
+     * using it, each request on a connection of its own.
+     */
+    public void retire() {
+        retired = true;
+        pool.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns whether {@link #retire()} was called.
+     *
+     * @return true if retired
+     */
+    public boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * Returns the pooled connection behind one handed out by this manager.
+     */
+    private static HttpClientConnection unwrap(HttpClientConnection conn) {
+        return conn instanceof ObservedConnection ? ((ObservedConnection) conn).conn : conn;
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        responses.remove();
+        ConnectionRequest request = pool.requestConnection(route, state);
+        return new ConnectionRequest() {
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit tunit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                if (limiter != null) {
+                    limiter.acquire();
+                }
+                HttpClientConnection connection = request.get(timeout, tunit);
+                if (connection instanceof ManagedHttpClientConnection) {
+                    connection = new ObservedConnection((ManagedHttpClientConnection) connection);
+                }
+                return connection;
+            }
+        };
+    }
+
+    @Override
+    public void releaseConnection(HttpClientConnection conn, Object newState, long validDuration, TimeUnit timeUnit) {
+        pool.releaseConnection(unwrap(conn), newState, validDuration, timeUnit);
+        if (retired) {
+            pool.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void connect(HttpClientConnection conn, HttpRoute route, int connectTimeout, HttpContext context)
+            throws IOException {
+        pool.connect(unwrap(conn), route, connectTimeout, context);
+    }
+
+    @Override
+    public void upgrade(HttpClientConnection conn, HttpRoute route, HttpContext context) throws IOException {
+        pool.upgrade(unwrap(conn), route, context);
+    }
+
+    @Override
+    public void routeComplete(HttpClientConnection conn, HttpRoute route, HttpContext context) throws IOException {
+        pool.routeComplete(unwrap(conn), route, context);
+    }
+
+    @Override
+    public void closeIdleConnections(long idletime, TimeUnit tunit) {
+        pool.closeIdleConnections(idletime, tunit);
+    }
+
+    @Override
+    public void closeExpiredConnections() {
+        pool.closeExpiredConnections();
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * A pooled connection that records the head of each response it
+     * receives for the receiving thread, and buffers the body of error
+     * responses.
+     */
+    private class ObservedConnection implements ManagedHttpClientConnection, HttpContext {
+        private final ManagedHttpClientConnection conn;
+
+        private ObservedConnection(ManagedHttpClientConnection conn) {
+            this.conn = conn;
+        }
+
+        @Override
+        public HttpResponse receiveResponseHeader() throws HttpException, IOException {
+            HttpResponse response = conn.receiveResponseHeader();
+            HttpResponse head = new BasicHttpResponse(response.getStatusLine());
+            head.setHeaders(response.getAllHeaders());
+            responses.set(head);
+            return response;
+        }
+
+        @Override
+        public boolean isResponseAvailable(int timeout) throws IOException {
+            return conn.isResponseAvailable(timeout);
+        }
+
+        @Override
+        public void sendRequestHeader(HttpRequest request) throws HttpException, IOException {
+            conn.sendRequestHeader(request);
+        }
+
+        @Override
+        public void sendRequestEntity(HttpEntityEnclosingRequest request) throws HttpException, IOException {
+            conn.sendRequestEntity(request);
+        }
+
+        @Override
+        public void receiveResponseEntity(HttpResponse response) throws HttpException, IOException {
+            conn.receiveResponseEntity(response);
+            HttpEntity entity = response.getEntity();
+            if (response.getStatusLine().getStatusCode() >= 400 && entity != null && entity.isStreaming()) {
+                // a buffered entity is not streaming, so HttpClient releases the connection at once
+                response.setEntity(new BufferedHttpEntity(entity));
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            conn.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            conn.close();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return conn.isOpen();
+        }
+
+        @Override
+        public boolean isStale() {
+            return conn.isStale();
+        }
+
+        @Override
+        public void setSocketTimeout(int timeout) {
+            conn.setSocketTimeout(timeout);
+        }
+
+        @Override
+        public int getSocketTimeout() {
+            return conn.getSocketTimeout();
+        }
+
+        @Override
+        public void shutdown() throws IOException {
+            conn.shutdown();
+        }
+
+        @Override
+        public HttpConnectionMetrics getMetrics() {
+            return conn.getMetrics();
+        }
+
+        @Override
+        public InetAddress getLocalAddress() {
+            return conn.getLocalAddress();
+        }
+
+        @Override
+        public int getLocalPort() {
+            return conn.getLocalPort();
+        }
+
+        @Override
+        public InetAddress getRemoteAddress() {
+            return conn.getRemoteAddress();
+        }
+
+        @Override
+        public int getRemotePort() {
+            return conn.getRemotePort();
+        }
+
+        @Override
+        public String getId() {
+            return conn.getId();
+        }
+
+        @Override
+        public void bind(Socket socket) throws IOException {
+            conn.bind(socket);
+        }
+
+        @Override
+        public Socket getSocket() {
+            return conn.getSocket();
+        }
+
+        @Override
+        public SSLSession getSSLSession() {
+            return conn.getSSLSession();
+        }
+
+        @Override
+        public Object getAttribute(String id) {
+            return conn instanceof HttpContext ? ((HttpContext) conn).getAttribute(id) : null;
+        }
+
+        @Override
+        public void setAttribute(String id, Object obj) {
+            if (conn instanceof HttpContext) {
+                ((HttpContext) conn).setAttribute(id, obj);
+            }
+        }
+
+        @Override
+        public Object removeAttribute(String id) {
+            return conn instanceof HttpContext ? ((HttpContext) conn).removeAttribute(id) : null;
+        }
+    }
+
+}
@@ -0,0 +1,283 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.utils.DateUtils;
+
+import com.independentsoft.share.Service;
+import com.independentsoft.share.ServiceException;
+
+/**
+ * Retries SharePoint requests that fail because the site is throttling
+ * (429 Too Many Requests, 503 Service Unavailable) or for a transient
+ * reason (a gateway error or timeout, or a broken connection).  A throttled
+ * request is retried after the {@code Retry-After} delay the server asked
+ * for, when the {@link ReclaimingConnectionManager} of the {@link Service}
+ * saw one; otherwise, and for transient failures, after an exponentially
+ * growing delay with random jitter, so that concurrent clients do not all
+ * retry at once.  Other failures are not retried.
+ */
+public class Retrier {
+
+    /**
+     * The longest delay before a retry, whatever the server asks for.
+     */
+    public static final long MAX_DELAY = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * A request to retry.
+     */
+    public interface Call<T> {
+        T call() throws ServiceException;
+    }
+
+    /**
+     * How a request failed.
+     */
+    public enum Failure {
+        /** the server is throttling: the request was not processed */
+        THROTTLED,
+        /** the request may or may not have been processed */
+        TRANSIENT,
+        /** retrying would fail the same way */
+        PERMANENT;
+    }
+
+    private static final Pattern STATUS = Pattern.compile("^(\\d{3})\\b");
+
+    private static final ConcurrentMap<String,RetryStats> stats = new ConcurrentHashMap<>();
+
+    private final int retries;
+    private final long delay;
+    private final RetryStats clientstats;
+    private final Consumer<String> debug;
+
+    /**
+     * Creates a retrier for a connection.
+     *
+     * @param clientkey the client key, under which retries are counted
+     * @param retries the number of times a request is retried
+     * @param delay the delay before the first retry in milliseconds, doubled for each further retry
+     * @param debug receives a message for each retry
+     */
+    public Retrier(String clientkey, int retries, long delay, Consumer<String> debug) {
+        this.retries = Math.max(0, retries);
+        this.delay = Math.max(1, delay);
+        this.clientstats = stats(clientkey);
+        this.debug = debug;
+    }
+
+    /**
+     * Returns the statistics for a connection, registering them with JMX
+     * when first used.
+     *
+     * @param clientkey the client key
+     * @return the statistics
+     */
+    public static RetryStats stats(String clientkey) {
+        RetryStats clientstats = stats.get(clientkey);
+        if (clientstats==null) {
+            RetryStats newstats = new RetryStats(clientkey);
+            clientstats = stats.putIfAbsent(clientkey, newstats);
+            if (clientstats==null) {
+                clientstats = newstats.register();
+            }
+        }
+        return clientstats;
+    }
+
+    /**
+     * Makes a request, retrying it while it is throttled or, if it is
+     * {@code idempotent}, while it fails transiently.
+     *
+     * @param service the service the request is made on
+     * @param idempotent true if the request can safely be repeated after a transient failure
+     * @param call makes the request
+     * @return its result
+     * @throws ServiceException the last failure
+     */
+    public <T> T call(Service service, boolean idempotent, Call<T> call) throws ServiceException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return call.call();
+            } catch (ServiceException e) {
+                Failure failure = classify(e, lastResponse(service));
+                if (failure == Failure.PERMANENT || (failure == Failure.TRANSIENT && !idempotent)
+                        || !backoff(service, e, failure, attempt)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits before retrying a failed request, unless it failed permanently
+     * or has been retried enough.
+     *
+     * @param service the service the request was made on
+     * @param e the failure
+     * @param attempt the number of times the request has been retried so far
+     * @return true to retry the request, false to give up
+     */
+    public boolean backoff(Service service, ServiceException e, int attempt) {
+        HttpResponse response = lastResponse(service);
+        return backoff(service, e, classify(e, response), attempt);
+    }
+
+    private boolean backoff(Service service, ServiceException e, Failure failure, int attempt) {
+        if (failure == Failure.PERMANENT) {
+            return false;
+        } else if (failure == Failure.THROTTLED) {
+            clientstats.throttled();
+        } else {
+            clientstats.transientFailure();
+        }
+        if (attempt >= retries) {
+            clientstats.exhausted();
+            return false;
+        }
+        long wait = delay(attempt, failure == Failure.THROTTLED ? retryAfter(lastResponse(service)) : -1);
+        if (debug != null) {
+            debug.accept(String.format("%s request failed (%s), retry %d of %d in %dms",
+                    failure.name().toLowerCase(), e.getMessage(), attempt+1, retries, wait));
+        }
+        try {
+            Thread.sleep(wait);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        clientstats.retry(wait);
+        return true;
+    }
+
+    /**
+     * Returns the delay before a retry: the {@code Retry-After} delay if
+     * there is one, plus up to the base delay of jitter, or else a random
+     * delay between half and all of the base delay doubled {@code attempt}
+     * times.
+     *
+     * @param attempt the number of retries so far
+     * @param retryAfter the delay the server asked for in milliseconds, or -1
+     * @return the delay in milliseconds
+     */
+    long delay(int attempt, long retryAfter) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (retryAfter >= 0) {
+            return Math.min(MAX_DELAY, retryAfter + random.nextLong(delay));
+        }
+        long ceiling = Math.min(MAX_DELAY, delay << Math.min(attempt, 30));
+        return ceiling/2 + random.nextLong(ceiling/2 + 1);
+    }
+
+    /**
+     * Returns the last response received by a service on the current thread.
+     *
+     * @param service the service
+     * @return the response, or null if unknown
+     */
+    static HttpResponse lastResponse(Service service) {
+        if (service != null && service.getClientConnectionManager() instanceof ReclaimingConnectionManager) {
+            return ((ReclaimingConnectionManager) service.getClientConnectionManager()).getLastResponse();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the status code of a failed request: the one jshare puts at
+     * the start of its message, or failing that the status of the last
+     * response received if it is an error.
+     *
+     * @param e the failure
+     * @param response the last response received on this thread, or null
+     * @return the status code, or 0 if it is not known
+     */
+    static int status(ServiceException e, HttpResponse response) {
+        Matcher m = STATUS.matcher(String.valueOf(e.getMessage()));
+        if (m.find()) {
+            return Integer.parseInt(m.group(1));
+        } else if (response != null && response.getStatusLine().getStatusCode() >= 400) {
+            return response.getStatusLine().getStatusCode();
+        }
+        return 0;
+    }
+
+    /**
+     * Classifies a failed request by the status code jshare puts at the
+     * start of its message, or failing that by the status of the last
+     * response received, or else by whether a connection failed.
+     *
+     * @param e the failure
+     * @param response the last response received on this thread, or null
+     * @return the kind of failure
+     */
+    static Failure classify(ServiceException e, HttpResponse response) {
+        switch (status(e, response)) {
+        case 429:
+        case 503:
+            return Failure.THROTTLED;
+        case 408:
+        case 502:
+        case 504:
+            return Failure.TRANSIENT;
+        case 0:
+            for (Throwable t = e.getCause(); t != null; t = t.getCause()) {
+                if (t instanceof IOException) {
+                    return Failure.TRANSIENT;
+                }
+            }
+            return Failure.PERMANENT;
+        default:
+            return Failure.PERMANENT;
+        }
+    }
+
+    /**
+     * Returns whether SharePoint refused a request because it would exceed
+     * the list view threshold, which it reports with an
+     * {@code SPQueryThrottledException} code and a message naming the
+     * threshold.  Retrying the request would fail the same way.
+     *
+     * @param e the failure
+     * @return true if the list view threshold was exceeded
+     */
+    static boolean overThreshold(ServiceException e) {
+        return String.valueOf(e.getErrorCode()).contains("SPQueryThrottledException")
+                || String.valueOf(e.getErrorString()).toLowerCase().contains("list view threshold");
+    }
+
+    /**
+     * Returns the delay asked for by a throttled response.
+     *
+     * @param response the response, or null
+     * @return the {@code Retry-After} delay in milliseconds, or -1 if none
+     */
+    static long retryAfter(HttpResponse response) {
+        if (response == null) {
+            return -1;
+        }
+        int status = response.getStatusLine().getStatusCode();
+        Header header = response.getFirstHeader("Retry-After");
+        if ((status != 429 && status != 503) || header == null) {
+            return -1;
+        }
+        String value = header.getValue().trim();
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(value);
+            return date == null ? -1 : Math.max(0, date.getTime() - System.currentTimeMillis());
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * {@link Retrier} statistics for a single connection (client key),
+ * published as an MBean named
+ * {@code com.cleo.labs.connector.sharepoint:type=Retries,name="clientkey"}.
+ */
+public class RetryStats implements RetryStatsMBean {
+    private final String clientkey;
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder transients = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder delayMillis = new LongAdder();
+
+    public RetryStats(String clientkey) {
+        this.clientkey = clientkey;
+    }
+
+    /**
+     * Registers the statistics with the platform MBean server, quietly
+     * doing nothing if that fails.
+     *
+     * @return {@code this}
+     */
+    public RetryStats register() {
+        try {
+            ObjectName name = new ObjectName("com.cleo.labs.connector.sharepoint:type=Retries,name="+ObjectName.quote(clientkey));
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            }
+        } catch (JMException | SecurityException e) {
+            // statistics are still available through toString()
+        }
+        return this;
+    }
+
+    public void throttled() {
+        throttled.increment();
+    }
+
+    public void transientFailure() {
+        transients.increment();
+    }
+
+    public void retry(long millis) {
+        retries.increment();
+        delayMillis.add(millis);
+    }
+
+    public void exhausted() {
+        exhausted.increment();
+    }
+
+    @Override
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    @Override
+    public long getTransientCount() {
+        return transients.sum();
+    }
+
+    @Override
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getExhaustedCount() {
+        return exhausted.sum();
+    }
+
+    @Override
+    public double getAverageDelayMillis() {
+        long retryCount = getRetryCount();
+        return retryCount == 0 ? 0.0 : (double) delayMillis.sum() / retryCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("throttled=%d transient=%d retries=%d exhausted=%d averageDelay=%.1fms",
+                getThrottledCount(), getTransientCount(), getRetryCount(), getExhaustedCount(), getAverageDelayMillis());
+    }
+}
@@ -0,0 +1,12 @@
+package com.cleo.labs.connector.sharepoint;
+
+/**
+ * The JMX view of {@link RetryStats}.
+ */
+public interface RetryStatsMBean {
+    long getThrottledCount();
+    long getTransientCount();
+    long getRetryCount();
+    long getExhaustedCount();
+    double getAverageDelayMillis();
+}
@@ -0,0 +1,203 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apache.http.Header;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.independentsoft.share.Service;
+import com.independentsoft.share.ServiceException;
+
+/**
+ * A process-wide registry of warm {@link Service} sessions, keyed by the
+ * same client key used by {@link AttrCache}.  Clients for the same site and
+ * user share a single {@code Service}, so the authentication handshake and
+ * the site prefix resolution are paid once rather than once per action.
+ * Idle sessions are evicted after {@link #DEFAULT_SPEC}, and their
+ * connection pools retired.
+ */
+public class ServiceCache {
+
+    /**
+     * maximumSize=100,expireAfterAccess=10m
+     */
+    public static final String DEFAULT_SPEC = "maximumSize=100,expireAfterAccess=10m";
+
+    /**
+     * The connection pool size for each shared {@code Service}.  The jshare
+     * default of 2 connections per route would serialize concurrent clients.
+     */
+    public static final int MAX_CONNECTIONS = 20;
+
+    /**
+     * The number of released spare services a session keeps for reuse.
+     * Spares released beyond this are retired.
+     */
+    public static final int MAX_SPARES = MAX_CONNECTIONS;
+
+    /**
+     * A warm {@link Service} and its server-relative site prefix.
+     */
+    public static class Session {
+        private final Service service;
+        private final String prefix;
+        private final String password;
+        private String webId;
+        private final BlockingQueue<Service> spares = new LinkedBlockingQueue<>(MAX_SPARES);
+        private final TokenBucket limiter;
+        private volatile boolean retired = false;
+
+        /**
+         * Creates a session whose requests, including those on spare
+         * services, are limited by a shared {@link TokenBucket}.
+         *
+         * @param service the service
+         * @param prefix the server-relative site prefix
+         * @param limiter limits the request rate, or null for no limit
+         */
+        public Session(Service service, String prefix, TokenBucket limiter) {
+            this.service = service;
+            this.prefix = prefix;
+            this.password = service.getPassword();
+            this.limiter = limiter;
+            pool(service, MAX_CONNECTIONS, limiter);
+        }
+
+        public Service getService() {
+            return service;
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        /**
+         * Returns the id of the site (web), fetching it on first use.
+         *
+         * @return the site id
+         * @throws ServiceException
+         */
+        public synchronized String getWebId() throws ServiceException {
+            if (webId == null) {
+                webId = service.getSite().getId();
+            }
+            return webId;
+        }
+
+        /**
+         * Borrows a {@link Service} for requests that need their own custom
+         * headers, which can not be set on the shared {@code Service}
+         * without affecting its other users.  Spare services are created on
+         * demand with the same credentials and reused once released.
+         *
+         * @return a service for the exclusive use of the caller
+         */
+        public Service borrow() {
+            Service spare = spares.poll();
+            if (spare == null) {
+                if (Strings.isNullOrEmpty(service.getDomain())) {
+                    spare = new Service(service.getSiteUrl(), service.getUsername(), password);
+                } else {
+                    spare = new Service(service.getSiteUrl(), service.getUsername(), password, service.getDomain());
+                }
+                pool(spare, 1, limiter);
+            }
+            return spare;
+        }
+
+        /**
+         * Returns a service obtained from {@link #borrow()}.
+         *
+         * @param spare the service
+         */
+        public void release(Service spare) {
+            spare.setCustomHeaders(new Header[0]);
+            if (!spares.offer(spare)) {
+                retirePool(spare);
+            } else if (retired) {
+                retire();
+            }
+        }
+
+        /**
+         * Retires the connection pools of the service and its spares, once
+         * the session is no longer cached.  Spares released later are
+         * retired as they come back.
+         */
+        private void retire() {
+            retired = true;
+            retirePool(service);
+            for (Service spare = spares.poll(); spare != null; spare = spares.poll()) {
+                retirePool(spare);
+            }
+        }
+    }
+
+    /**
+     * Sizes the connection pool of a {@link Service} and wraps it in a
+     * {@link ReclaimingConnectionManager}.
+     *
+     * @param service the service
+     * @param connections the pool size
+     * @param limiter limits the request rate, or null for no limit
+     */
+    private static void pool(Service service, int connections, TokenBucket limiter) {
+        HttpClientConnectionManager manager = service.getClientConnectionManager();
+        if (manager instanceof PoolingHttpClientConnectionManager) {
+            PoolingHttpClientConnectionManager pool = (PoolingHttpClientConnectionManager)manager;
+            pool.setMaxTotal(connections);
+            pool.setDefaultMaxPerRoute(connections);
+            service.setClientConnectionManager(new ReclaimingConnectionManager(pool, limiter));
+        }
+    }
+
+    /**
+     * Retires the connection pool of a {@link Service}.
+     *
+     * @param service the service
+     */
+    private static void retirePool(Service service) {
+        if (service.getClientConnectionManager() instanceof ReclaimingConnectionManager) {
+            ((ReclaimingConnectionManager) service.getClientConnectionManager()).retire();
+        }
+    }
+
+    // a client may still be using a session that is evicted or replaced, so
+    // its pools are retired, closing each connection as it is released
+    private static Cache<String,Session> cache = CacheBuilder.from(DEFAULT_SPEC)
+            .removalListener((RemovalListener<String,Session>) (removal) -> removal.getValue().retire())
+            .build();
+
+    /**
+     * Returns the shared session for {@code clientkey}, creating it with
+     * {@code loader} if there is none.  A cached session created with a
+     * different password is replaced.
+     *
+     * @param clientkey the client key
+     * @param password the current password for the connection
+     * @param loader creates a new session
+     * @return the shared session
+     * @throws ExecutionException if the loader fails
+     */
+    public static Session get(String clientkey, String password, Callable<Session> loader) throws ExecutionException {
+        Session session = cache.get(clientkey, loader);
+        if (!Objects.equals(session.password, password)) {
+            cache.asMap().remove(clientkey, session);
+            session = cache.get(clientkey, loader);
+        }
+        return session;
+    }
+
+    private ServiceCache() {
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.io.IOException;
+import java.nio.file.attribute.DosFileAttributeView;
+import java.nio.file.attribute.DosFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Date;
+
+/**
+ * Immutable SharePoint attribute views, holding only the values reported
+ * for a file or folder so that cached attributes stay small and reading
+ * them allocates nothing.
+ */
+public abstract class SharePointAttributes implements DosFileAttributes, DosFileAttributeView {
+    private final FileTime modified;
+
+    protected SharePointAttributes(Date modified) {
+        this.modified = FileTime.fromMillis(modified == null ? 0L : modified.getTime());
+    }
+
+    @Override
+    public FileTime lastModifiedTime() {
+        return modified;
+    }
+
+    @Override
+    public FileTime lastAccessTime() {
+        return modified;
+    }
+
+    @Override
+    public FileTime creationTime() {
+        return modified;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+        return false;
+    }
+
+    @Override
+    public boolean isOther() {
+        return false;
+    }
+
+    @Override
+    public Object fileKey() {
+        return null;
+    }
+
+    @Override
+    public void setTimes(FileTime lastModifiedTime, FileTime lastAccessTime, FileTime createTime) throws IOException {
+        if (lastModifiedTime != null || lastAccessTime != null || createTime != null) {
+            throw new UnsupportedOperationException("setTimes() not supported for SharePoint");
+        }
+    }
+
+    @Override
+    public String name() {
+        return "blob";
+    }
+
+    @Override
+    public DosFileAttributes readAttributes() throws IOException {
+        return this;
+    }
+
+    @Override
+    public void setReadOnly(boolean value) throws IOException {
+        throw new UnsupportedOperationException("setReadOnly() not supported for SharePoint");
+    }
+
+    @Override
+    public void setHidden(boolean value) throws IOException {
+        throw new UnsupportedOperationException("setHidden() not supported for SharePoint");
+    }
+
+    @Override
+    public void setSystem(boolean value) throws IOException {
+        throw new UnsupportedOperationException("setSystem() not supported for SharePoint");
+    }
+
+    @Override
+    public void setArchive(boolean value) throws IOException {
+        throw new UnsupportedOperationException("setArchive() not supported for SharePoint");
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    @Override
+    public boolean isHidden() {
+        return false;
+    }
+
+    @Override
+    public boolean isArchive() {
+        return false;
+    }
+
+    @Override
+    public boolean isSystem() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s size=%d modified=%s", isDirectory() ? "folder" : "file", size(), modified);
+    }
+
+}
@@ -11,18 +11,45 @@ import static com.cleo.connector.api.command.ConnectorCommandName.RMDIR;
 import static com.cleo.connector.api.command.ConnectorCommandOption.Delete;
 import static com.cleo.connector.api.command.ConnectorCommandOption.Unique;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.nio.file.attribute.BasicFileAttributeView;
 import java.security.InvalidKeyException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.message.BasicHeader;
 
 import com.cleo.connector.api.ConnectorClient;
 import com.cleo.connector.api.ConnectorException;
@@ -41,6 +68,11 @@ import com.cleo.connector.api.interfaces.IConnectorIncoming;
 import com.cleo.connector.api.interfaces.IConnectorOutgoing;
 import com.cleo.connector.api.property.ConnectorPropertyException;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.independentsoft.share.Change;
+import com.independentsoft.share.ChangeQuery;
+import com.independentsoft.share.ChangeToken;
+import com.independentsoft.share.ChangeTokenScope;
 import com.independentsoft.share.File;
 import com.independentsoft.share.Folder;
 import com.independentsoft.share.MoveOperation;
@@ -49,12 +81,20 @@ import com.independentsoft.share.ServiceException;
 import com.independentsoft.share.queryoptions.Filter;
 import com.independentsoft.share.queryoptions.IQueryOption;
 import com.independentsoft.share.queryoptions.IsEqualTo;
+import com.independentsoft.share.queryoptions.OrderBy;
+import com.independentsoft.share.queryoptions.PropertyOrder;
+import com.independentsoft.share.queryoptions.Select;
+import com.independentsoft.share.queryoptions.Skip;
+import com.independentsoft.share.queryoptions.StartsWith;
+import com.independentsoft.share.queryoptions.Top;
 
 public class SharePointConnectorClient extends ConnectorClient {
     private SharePointConnectorConfig config;
     private Service service;
+    private ServiceCache.Session session;
     private String prefix;
     private String clientkey;
+    private Retrier retrier;
 
     /**
      * Constructs a new {@code SharePointConnectorClient} for the schema
@@ -63,31 +103,69 @@ public class SharePointConnectorClient extends ConnectorClient {
      */
     public SharePointConnectorClient(SharePointConnectorSchema schema) {
         this.config = new SharePointConnectorConfig(this, schema);
+        this.session = null;
         this.service = null;
         this.prefix = null;
     }
 
     /**
-     * Establishes a {@link Service} reference for the client
+     * Establishes a {@link Service} reference for the client, reusing a
+     * warm session from the {@link ServiceCache} when one exists.
      * 
-     * @throws ConnectorPropertyException
+     * @throws ConnectorException
      */
-    private synchronized void setup() throws ConnectorPropertyException {
+    private synchronized void setup() throws ConnectorException {
         if (service == null) {
-            logger.debug("connecting to "+config.getServiceURL()+" as "+config.getUsername());
-            if (Strings.isNullOrEmpty(config.getDomain())) {
-                service = new Service(config.getServiceURL(), config.getUsername(), config.getPassword());
-                clientkey = config.getUsername()+"@"+config.getServiceURL();
+            String url = config.getServiceURL();
+            String username = config.getUsername();
+            String password = config.getPassword();
+            String domain = config.getDomain();
+            String attrCacheSpec = config.getAttrCacheSpec();
+            int requestRate = config.getRequestRate();
+            int requestBurst = config.getRequestBurst();
+            if (Strings.isNullOrEmpty(domain)) {
+                clientkey = username+"@"+url;
             } else {
-                service = new Service(config.getServiceURL(), config.getUsername(), config.getPassword(), config.getDomain());
-                clientkey = config.getUsername()+"@"+config.getDomain()+"@"+config.getServiceURL();
+                clientkey = username+"@"+domain+"@"+url;
             }
-            prefix = service.getSiteUrl().replaceFirst("[^/]*//[^/]*", "");
+            AttrCache.configure(clientkey, attrCacheSpec);
+            TokenBucket limiter = TokenBucket.of(clientkey).configure(requestRate, requestBurst);
+            try {
+                session = ServiceCache.get(clientkey, password, () -> {
+                    logger.debug("connecting to "+url+" as "+username);
+                    Service newservice;
+                    if (Strings.isNullOrEmpty(domain)) {
+                        newservice = new Service(url, username, password);
+                    } else {
+                        newservice = new Service(url, username, password, domain);
+                    }
+                    return new ServiceCache.Session(newservice, newservice.getSiteUrl().replaceFirst("[^/]*//[^/]*", ""), limiter);
+                });
+            } catch (ExecutionException e) {
+                throw new ConnectorException("cannot connect to "+url, e.getCause());
+            }
+            service = session.getService();
+            prefix = session.getPrefix();
+            retrier = new Retrier(clientkey, config.getThrottleRetries(), config.getThrottleRetryDelay(), logger::debug);
         }
     }
 
+    /**
+     * Makes a request on the shared {@link Service}, retrying it while
+     * SharePoint is throttling or, if it is {@code idempotent}, while it
+     * fails transiently.
+     *
+     * @param idempotent true if the request can safely be repeated
+     * @param call makes the request
+     * @return its result
+     * @throws ServiceException
+     */
+    private <T> T retry(boolean idempotent, Retrier.Call<T> call) throws ServiceException {
+        return retrier.call(service, idempotent, call);
+    }
+
     @Command(name = DIR)
-    public ConnectorCommandResult dir(DirCommand dir) throws ConnectorPropertyException, ServiceException {
+    public ConnectorCommandResult dir(DirCommand dir) throws ConnectorException, ServiceException {
         String source = dir.getSource().getPath();
 
         logger.debug(String.format("DIR '%s'", source));
@@ -95,27 +173,262 @@ public class SharePointConnectorClient extends ConnectorClient {
 
         if (source.equals(".")) source = ""; // TODO: remove when Harmony is fixed
         Path sourcePath = new Path(source);
+        // a new listing supersedes whatever was read ahead from the last one
+        ReadAhead.invalidateTree(clientkey, sourcePath);
 
-        List<Entry> list = new ArrayList<>();
-        for (Folder f : service.getFolders(source)) {
-            Entry entry = new Entry(Type.dir)
-                    .setPath(sourcePath.child(f.getName()).toString())
-                    .setDate(Attributes.toLocalDateTime(f.getLastModifiedTime()))
-                    .setSize(-1L);
-            list.add(entry);
-            AttrCache.put(clientkey, sourcePath.child(f.getName()), new SharePointFolderAttributes(f, logger));
-        }
-        for (File f : service.getFiles(source)) {
-            Entry entry = new Entry(Type.file)
-                    .setPath(sourcePath.child(f.getName()).toString())
-                    .setDate(Attributes.toLocalDateTime(f.getLastModifiedTime()))
-                    .setSize(f.getLength());
-            list.add(entry);
-            AttrCache.put(clientkey, sourcePath.child(f.getName()), new SharePointFileAttributes(f, logger));
+        boolean recursive = config.getDirRecursive();
+        List<Entry> list;
+        if (config.getDirDelta()) {
+            list = deltaDir(source, sourcePath, recursive);
+        } else {
+            list = fullDir(source, sourcePath, recursive);
         }
         return new ConnectorCommandResult(Status.Success, Optional.empty(), list);
     }
 
+    /**
+     * Lists a folder, or with {@code recursive} its whole tree.
+     *
+     * @param source the folder, as passed to the service
+     * @param sourcePath the folder {@link Path}
+     * @param recursive true to list all subfolders as well
+     * @return the entries
+     * @throws ConnectorPropertyException
+     * @throws ServiceException
+     */
+    private List<Entry> fullDir(String source, Path sourcePath, boolean recursive) throws ConnectorPropertyException, ServiceException {
+        int pageSize = config.getDirPageSize();
+        if (recursive) {
+            return Workers.get(Workers.pool().submit(new FolderWalker<>(source, sourcePath, pageSize, (path, entry) -> entry)));
+        } else {
+            List<Entry> list = new ArrayList<>();
+            listFolder(source, sourcePath, pageSize, (path, entry) -> list.add(entry), (p) -> {});
+            return list;
+        }
+    }
+
+    /**
+     * Allows for clock skew between this host and SharePoint when a change
+     * token is made from the local time.
+     */
+    private static final long CHANGE_TOKEN_SKEW = 60000L;
+
+    /**
+     * Lists a folder incrementally: if the folder was listed before, asks
+     * SharePoint for the changes since its saved change token and returns
+     * the saved listing if there are none.  Otherwise, or if the token has
+     * expired, lists the folder in full and saves the listing with a new
+     * token.
+     * <p/>
+     * The change log reports files and folders by id, not by path, so any
+     * file, folder or item change on the site causes a full listing.
+     *
+     * @param source the folder, as passed to the service
+     * @param sourcePath the folder {@link Path}
+     * @param recursive true to list all subfolders as well
+     * @return the entries
+     * @throws ConnectorPropertyException
+     * @throws ServiceException
+     */
+    private List<Entry> deltaDir(String source, Path sourcePath, boolean recursive) throws ConnectorPropertyException, ServiceException {
+        DeltaCache.Snapshot snapshot = DeltaCache.get(clientkey, sourcePath, recursive);
+        ChangeToken token = null;
+        if (snapshot != null) {
+            try {
+                ChangeQuery query = new ChangeQuery();
+                query.setChangeTokenStart(snapshot.getToken());
+                query.setFile(true);
+                query.setFolder(true);
+                query.setItem(true);
+                query.setAdd(true);
+                query.setUpdate(true);
+                query.setDelete(true);
+                query.setRename(true);
+                query.setMove(true);
+                query.setRestore(true);
+                List<Change> changes = retry(true, () -> service.getChanges(query));
+                if (changes.isEmpty()) {
+                    logger.debug(String.format("DIR '%s' unchanged since %s", source, snapshot.getToken()));
+                    return new ArrayList<>(snapshot.getEntries());
+                }
+                logger.debug(String.format("DIR '%s' %d changes since %s", source, changes.size(), snapshot.getToken()));
+                token = changes.get(changes.size()-1).getToken();
+            } catch (ServiceException e) {
+                logger.debug(String.format("DIR '%s' change token %s rejected: %s", source, snapshot.getToken(), e.getMessage()));
+            }
+        }
+        if (token == null) {
+            token = new ChangeToken(ChangeTokenScope.SITE, session.getWebId(), new Date(System.currentTimeMillis()-CHANGE_TOKEN_SKEW));
+        }
+        List<Entry> list = fullDir(source, sourcePath, recursive);
+        DeltaCache.put(clientkey, sourcePath, recursive, new DeltaCache.Snapshot(token, list));
+        return list;
+    }
+
+    /**
+     * Lists a folder and, concurrently, all of its subfolders, returning
+     * an item made by {@code item} from the path and entry of each file and
+     * folder in the tree.  Each subfolder is forked as its own task on the
+     * shared {@link Workers} pool, so elapsed time follows the depth of the
+     * tree rather than the number of folders.
+     */
+    private class FolderWalker<T> extends RecursiveTask<List<T>> {
+        private static final long serialVersionUID = 1L;
+        private final String source;
+        private final Path sourcePath;
+        private final int pageSize;
+        private final BiFunction<Path,Entry,T> item;
+
+        public FolderWalker(String source, Path sourcePath, int pageSize, BiFunction<Path,Entry,T> item) {
+            this.source = source;
+            this.sourcePath = sourcePath;
+            this.pageSize = pageSize;
+            this.item = item;
+        }
+
+        @Override
+        protected List<T> compute() {
+            List<T> entries = new ArrayList<>();
+            List<FolderWalker<T>> subfolders = new ArrayList<>();
+            try {
+                Workers.block(() -> {
+                    listFolder(source, sourcePath, pageSize, (path, entry) -> entries.add(item.apply(path, entry)),
+                            (p) -> subfolders.add(new FolderWalker<>(p.toString(), p, pageSize, item)));
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+            for (FolderWalker<T> subfolder : subfolders) {
+                subfolder.fork();
+            }
+            for (FolderWalker<T> subfolder : subfolders) {
+                entries.addAll(subfolder.join());
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * The only folder properties used for entries and attributes.
+     */
+    private static final IQueryOption FOLDER_FIELDS = new Select("Name", "TimeLastModified");
+
+    /**
+     * The only file properties used for entries and attributes.
+     */
+    private static final IQueryOption FILE_FIELDS = new Select("Name", "Length", "TimeLastModified");
+
+    /**
+     * Lists the subfolders and files of a folder, passing the path and
+     * {@link Entry} of each to {@code consumer} (folders first) and caching
+     * its attributes.
+     * The folder and file requests are issued concurrently and select only
+     * the properties needed.
+     *
+     * @param source the folder, as passed to the service
+     * @param sourcePath the folder {@link Path}, used to compose entry paths
+     * @param pageSize the page size, 0 or less to list in a single request
+     * @param consumer receives the path and entry of each file and folder
+     * @param subfolders receives the {@link Path} of each subfolder
+     * @throws ServiceException
+     */
+    private void listFolder(String source, Path sourcePath, int pageSize, BiConsumer<Path,Entry> consumer,
+            Consumer<Path> subfolders) throws ServiceException {
+        Future<Map<Path,Entry>> folders = Workers.submit(() -> {
+            Map<Path,Entry> entries = new LinkedHashMap<>();
+            page((options) -> retry(true, () -> service.getFolders(source, options)), FOLDER_FIELDS, Folder::getName, pageSize, (f) -> {
+                Path path = sourcePath.child(f.getName());
+                SharePointAttributes attr = new SharePointFolderAttributes(f);
+                entries.put(path, entry(path, attr));
+                AttrCache.put(clientkey, path, attr);
+            });
+            return entries;
+        });
+        Map<Path,Entry> files = new LinkedHashMap<>();
+        page((options) -> retry(true, () -> service.getFiles(source, options)), FILE_FIELDS, File::getName, pageSize, (f) -> {
+            Path path = sourcePath.child(f.getName());
+            SharePointAttributes attr = new SharePointFileAttributes(f);
+            files.put(path, entry(path, attr));
+            AttrCache.put(clientkey, path, attr);
+        });
+        Workers.get(folders).forEach((path, entry) -> {
+            consumer.accept(path, entry);
+            subfolders.accept(path);
+        });
+        files.forEach(consumer);
+    }
+
+    /**
+     * Makes the DIR {@link Entry} for a file or folder.
+     *
+     * @param path the path
+     * @param attr its attributes
+     * @return the entry
+     */
+    static Entry entry(Path path, SharePointAttributes attr) {
+        return new Entry(attr.isDirectory() ? Type.dir : Type.file)
+                .setPath(path.toString())
+                .setDate(Attributes.toLocalDateTime(new Date(attr.lastModifiedTime().toMillis())))
+                .setSize(attr.size());
+    }
+
+    /**
+     * A folder or file collection request taking query options.
+     */
+    private interface Lister<T> {
+        List<T> list(List<IQueryOption> options) throws ServiceException;
+    }
+
+    /**
+     * Walks a collection in pages of {@code pageSize} items using $top and
+     * $skip ordered by name, so that only one page of jshare objects is held
+     * at a time and no single request crosses the list view threshold.
+     *
+     * @param lister makes the collection request
+     * @param select the $select projection
+     * @param name returns the name of an item
+     * @param pageSize the page size, 0 or less to list in a single request
+     * @param consumer receives each item
+     * @throws ServiceException
+     */
+    private <T> void page(Lister<T> lister, IQueryOption select, Function<T,String> name, int pageSize, Consumer<T> consumer) throws ServiceException {
+        if (pageSize <= 0) {
+            lister.list(Collections.singletonList(select)).forEach(consumer);
+            return;
+        }
+        IQueryOption order = new OrderBy(new PropertyOrder("Name"));
+        String first = null;
+        int skip = 0;
+        while (true) {
+            List<IQueryOption> options = new ArrayList<>(4);
+            options.add(select);
+            options.add(order);
+            options.add(new Top(pageSize));
+            if (skip > 0) {
+                options.add(new Skip(skip));
+            }
+            List<T> page = lister.list(options);
+            if (page.isEmpty()) {
+                break;
+            }
+            if (skip == 0) {
+                first = name.apply(page.get(0));
+            } else if (name.apply(page.get(0)).equals(first)) {
+                // the server ignored $skip: stop rather than loop forever
+                logger.debug(String.format("$skip=%d was ignored, stopping after %d items", skip, skip));
+                break;
+            }
+            page.forEach(consumer);
+            if (page.size() < pageSize) {
+                break;
+            }
+            skip += page.size();
+        }
+    }
+
     @Command(name = GET, options = { Delete })
     public ConnectorCommandResult get(GetCommand get) throws ConnectorException, IOException {
         String source = get.getSource().getPath();
@@ -125,13 +438,199 @@ public class SharePointConnectorClient extends ConnectorClient {
         setup();
         Path sourcePath = new Path(source);
 
-        try (InputStream is = service.getFileStream(prefix+sourcePath.toString())) {
-            transfer(is, destination.getStream(), true);
-            return new ConnectorCommandResult(ConnectorCommandResult.Status.Success);
+        String url = prefix+sourcePath.toString();
+        int segmentSize = (int) Math.min(Integer.MAX_VALUE, config.getDownloadSegmentSize() * 1024L * 1024L);
+        int parallelism = config.getDownloadParallelism();
+
+        boolean delete = ConnectorCommandUtil.isOptionOn(get.getOptions(), Delete);
+
+        InputStream stream = null;
+        ReadAhead.Read ahead = ReadAhead.take(clientkey, sourcePath);
+        if (ahead != null) {
+            try {
+                byte[] content = Workers.get(ahead.getContent());
+                if (content.length != ahead.getAttributes().size()) {
+                    logger.debug(String.format("GET '%s' changed while read ahead, reading again", source));
+                } else if (delete && !unchanged(sourcePath, ahead.getAttributes())) {
+                    // the file is about to be deleted, so it must be the one that was read
+                    logger.debug(String.format("GET '%s' changed since read ahead, reading again", source));
+                } else {
+                    stream = new ByteArrayInputStream(content);
+                    logger.debug(String.format("GET '%s' was read ahead", source));
+                }
+            } catch (ServiceException e) {
+                logger.debug(String.format("GET '%s' read ahead failed, reading again: %s", source, e.getMessage()));
+            }
+        }
+        readAhead(sourcePath, config.getDownloadReadAhead());
+
+        try {
+            if (stream == null && segmentSize > 0 && parallelism > 1) {
+                // a file known to fit in one segment is not worth a ranged request
+                Optional<BasicFileAttributeView> cached = AttrCache.peek(clientkey, sourcePath);
+                if (!cached.isPresent() || cached.get().readAttributes().size() > segmentSize) {
+                    stream = openSegmented(url, segmentSize, parallelism);
+                }
+            }
+            if (stream == null) {
+                stream = retry(true, () -> service.getFileStream(url));
+            }
+            try (InputStream is = stream) {
+                transfer(is, destination.getStream(), true);
+            } catch (IOException e) {
+                // a segment that could not be read fails like the single stream would
+                if (Throwables.getCausalChain(e).stream().anyMatch(ServiceException.class::isInstance)) {
+                    logger.debug(String.format("GET '%s' segment failed: %s", source, e.getMessage()));
+                    throw new ConnectorException(String.format("'%s' does not exist or is not accessible", source),
+                            ConnectorException.Category.fileNonExistentOrNoAccess);
+                }
+                throw e;
+            }
         } catch (ServiceException e) {
             throw new ConnectorException(String.format("'%s' does not exist or is not accessible", source),
                     ConnectorException.Category.fileNonExistentOrNoAccess);
         }
+        if (delete) {
+            ServiceException failure = deleteFiles(Collections.singletonList(sourcePath)).get(sourcePath);
+            if (failure != null) {
+                // the file was delivered, so failing the GET would have it delivered again on a retry
+                logger.debug(String.format("GET '%s' received but not deleted: %s", source, failure.getMessage()));
+                return new ConnectorCommandResult(Status.Warning,
+                        String.format("'%s' was received but could not be deleted: %s", source, failure.getMessage()));
+            }
+        }
+        return new ConnectorCommandResult(ConnectorCommandResult.Status.Success);
+    }
+
+    /**
+     * Starts reading ahead up to {@code count} of the files that follow a
+     * file in the {@link AttrCache}, skipping those larger than the
+     * read ahead limit, for the GETs expected to follow.
+     *
+     * @param path the file being read
+     * @param count the number of files to read ahead, 0 or less for none
+     * @throws ConnectorPropertyException
+     */
+    private void readAhead(Path path, int count) throws ConnectorPropertyException {
+        if (count <= 0) {
+            return;
+        }
+        long limit = config.getDownloadReadAheadLimit() * 1024L;
+        AttrCache.following(clientkey, path, count, (attr) -> attr.isRegularFile() && attr.size() <= limit).forEach((next, attr) -> {
+            String url = prefix+next.toString();
+            ReadAhead.fetch(clientkey, next, attr, () -> retry(true, () -> {
+                try (InputStream in = service.getFileStream(url)) {
+                    return IOUtils.toByteArray(in);
+                } catch (IOException e) {
+                    throw new ServiceException(e.getMessage(), e, url);
+                }
+            }));
+        });
+    }
+
+    /**
+     * Returns whether a file still has the size and modification time it
+     * was read ahead for.
+     *
+     * @param path the file
+     * @param attr the attributes it was read for
+     * @return true if it is unchanged, false if it changed or is gone
+     */
+    private boolean unchanged(Path path, SharePointAttributes attr) {
+        return getFile(path).map(SharePointFileAttributes::new)
+                .filter((current) -> current.size() == attr.size() && current.lastModifiedTime().equals(attr.lastModifiedTime()))
+                .isPresent();
+    }
+
+    /**
+     * Opens a file to download in segments.  The first segment is read with
+     * a {@code Range} request, whose {@code Content-Range} gives the length
+     * of the file, and the rest are fetched by a {@link RangedInputStream}.
+     * If the server ignores the range and sends the whole file, that
+     * response is read as a single stream instead, and the borrowed
+     * {@link Service} is released only when the stream is closed.
+     *
+     * @param url the file
+     * @param segmentSize the size of each range
+     * @param parallelism the number of ranges fetched at once
+     * @return the file content
+     * @throws ServiceException
+     */
+    private InputStream openSegmented(String url, int segmentSize, int parallelism) throws ServiceException {
+        Service ranged = session.borrow();
+        // set once the borrowed service is handed on with a stream still reading from it
+        boolean[] streaming = {false};
+        try {
+            ranged.setCustomHeaders(new Header[] {new BasicHeader("Range", "bytes=0-"+(segmentSize-1))});
+            return retrier.call(ranged, true, () -> {
+                InputStream in = ranged.getFileStream(url);
+                long length = RangedInputStream.totalLength(Retrier.lastResponse(ranged));
+                if (length < 0) {
+                    logger.debug(String.format("GET '%s' range ignored, reading as a single stream", url));
+                    streaming[0] = true;
+                    return new FilterInputStream(in) {
+                        private boolean released = false;
+
+                        @Override
+                        public void close() throws IOException {
+                            try {
+                                super.close();
+                            } finally {
+                                if (!released) {
+                                    released = true;
+                                    session.release(ranged);
+                                }
+                            }
+                        }
+                    };
+                }
+                try (InputStream first = in) {
+                    byte[] segment = IOUtils.toByteArray(first, Math.min(segmentSize, length));
+                    if (length <= segment.length) {
+                        return new ByteArrayInputStream(segment);
+                    }
+                    logger.debug(String.format("GET '%s' in %d byte segments, %d at a time", url, segmentSize, parallelism));
+                    return new RangedInputStream((offset, size) -> readRange(url, offset, size), length, segmentSize, parallelism, segment);
+                } catch (IOException e) {
+                    throw new ServiceException(e.getMessage(), e, url);
+                }
+            });
+        } finally {
+            if (!streaming[0]) {
+                session.release(ranged);
+            }
+        }
+    }
+
+    /**
+     * Reads a byte range of a file with a {@code Range} request, on a
+     * {@link Service} borrowed from the session so the header does not
+     * leak into other requests.
+     *
+     * @param url the file
+     * @param offset the offset of the first byte
+     * @param length the number of bytes
+     * @return the bytes
+     * @throws ServiceException if the request fails or the range is not honored
+     */
+    private byte[] readRange(String url, long offset, int length) throws ServiceException {
+        Service ranged = session.borrow();
+        try {
+            ranged.setCustomHeaders(new Header[] {new BasicHeader("Range", "bytes="+offset+"-"+(offset+length-1))});
+            return retrier.call(ranged, true, () -> {
+                try (InputStream in = ranged.getFileStream(url)) {
+                    byte[] range = new byte[length];
+                    if (IOUtils.read(in, range) != length || in.read() != -1) {
+                        throw new ServiceException(String.format("range %d-%d not returned", offset, offset+length-1), null, url);
+                    }
+                    return range;
+                } catch (IOException e) {
+                    throw new ServiceException(e.getMessage(), e, url);
+                }
+            });
+        } finally {
+            session.release(ranged);
+        }
     }
 
     /**
@@ -159,6 +658,37 @@ public class SharePointConnectorClient extends ConnectorClient {
         return destination;
     }
 
+    /**
+     * Sends the content of a PUT with {@link Upload#send}.  A failed request
+     * is sent again after a delay while SharePoint is throttling or the
+     * failure is transient, as the {@link Retrier} allows.  A permanent
+     * failure is not retried, unless {@code again} accepts it: then the
+     * content is sent again at once.  A spooled source is first copied to a
+     * local {@link Spool}, and sent again from the spool; any other source
+     * is read again.
+     *
+     * @param source the PUT source
+     * @param spool true to spool the source
+     * @param sender sends the content
+     * @param again accepts a failure the sender can handle if called again
+     * @return the file written, if it is known
+     * @throws ServiceException
+     * @throws ConnectorException
+     * @throws IOException
+     */
+    private Optional<File> upload(IConnectorOutgoing source, boolean spool, Upload.Sender<Optional<File>> sender,
+            Upload.Again again) throws ServiceException, ConnectorException, IOException {
+        Upload.Backoff backoff = (e, attempt) -> retrier.backoff(service, e, attempt);
+        Consumer<String> debug = (message) -> logger.debug(String.format("upload of '%s' failed, retrying: %s", source.getPath(), message));
+        if (!spool) {
+            return Upload.send(source::getStream, sender, again, backoff, debug);
+        }
+        try (Spool copy = new Spool(source.getStream())) {
+            logger.debug(String.format("spooled %d bytes from '%s'", copy.getLength(), source.getPath()));
+            return Upload.send(copy::open, sender, again, backoff, debug);
+        }
+    }
+
     @Command(name = PUT, options = { Unique, Delete })
     public ConnectorCommandResult put(PutCommand put) throws ConnectorException {
         String destination = put.getDestination().getPath();
@@ -169,42 +699,145 @@ public class SharePointConnectorClient extends ConnectorClient {
                 filename));
         setup();
         Path destinationPath = new Path(destination);
+        Path folder = destinationPath.parent();
 
         boolean unique = ConnectorCommandUtil.isOptionOn(put.getOptions(), Unique);
+        long threshold = config.getUploadSpoolThreshold() * 1024L * 1024L;
+        Long length = source.getLength();
+        boolean spool = threshold > 0 && (length == null || length < 0 || length >= threshold);
+        boolean optimistic = !unique && config.getOptimisticPut();
 
         try {
-            Optional<File> test = getFile(destinationPath);
-            if (unique && test.isPresent()) {
-                Path parent = destinationPath.parent();
-                String fn = destinationPath.name();
-                int counter = 0;
-                String ext = FilenameUtils.getExtension(fn).replaceFirst("^(?=[^\\.])","."); // prefix with "." unless empty or already "."
-                String base = fn.substring(0, fn.length()-ext.length());
-                Path candidate;
-
-                do {
-                    counter++;
-                    candidate = parent.child(base+"."+counter+ext);
-                    test = getFile(candidate);
-                } while (test.isPresent());
-                destinationPath = candidate;
-            }
-            if (test.isPresent()) {
-                service.updateFileContent(prefix+destinationPath.toString(), put.getSource().getStream());
+            // an optimistic PUT just overwrites whatever is there
+            Optional<Map<String,BasicFileAttributeView>> snapshot = optimistic ? Optional.empty() : snapshot(folder);
+            boolean exists;
+            if (optimistic) {
+                exists = false;
+            } else if (snapshot.isPresent()) {
+                BasicFileAttributeView existing = snapshot.get().get(destinationPath.name());
+                exists = existing != null && existing.readAttributes().isRegularFile();
             } else {
-                service.createFile(prefix+destinationPath.toString(), put.getSource().getStream());
+                exists = getFile(destinationPath).isPresent();
             }
+            Path[] target = {destinationPath};
+            if (unique && exists) {
+                target[0] = uniquePath(destinationPath, snapshot);
+            }
+            PutPlan plan = new PutPlan(unique, optimistic, snapshot.isPresent(), exists);
+            Optional<File> file = upload(source, spool, (in, retry) -> {
+                String url = prefix+target[0].toString();
+                if (plan.update(() -> getFile(target[0]).isPresent())) {
+                    service.updateFileContent(url, in);
+                    // fetch the new attributes rather than drop the listing
+                    return getFile(target[0]);
+                }
+                return Optional.of(service.createFile(url, in, plan.overwrite(retry)));
+            }, (e) -> {
+                HttpResponse response = Retrier.lastResponse(service);
+                // the snapshot may be too old to show the name was taken since
+                if (plan.taken(Retrier.classify(e, response), () -> getFile(target[0]).isPresent())) {
+                    AttrCache.invalidate(clientkey, folder);
+                    Path taken = target[0];
+                    target[0] = uniquePath(destinationPath, snapshot.isPresent() ? snapshot(folder) : Optional.empty());
+                    logger.debug(String.format("unique PUT found '%s' taken, trying '%s': %s", taken, target[0], e.getMessage()));
+                    return true;
+                }
+                if (plan.refused(Retrier.status(e, response))) {
+                    logger.debug(String.format("optimistic PUT of '%s' refused, checking first: %s", target[0], e.getMessage()));
+                    return true;
+                }
+                return false;
+            });
+            AttrCache.written(clientkey, target[0], file.map(SharePointFileAttributes::new).orElse(null));
             return new ConnectorCommandResult(ConnectorCommandResult.Status.Success);
+        } catch (IOException e) {
+            throw new ConnectorException(String.format("error reading '%s'", source.getPath()), e);
         } catch (ServiceException e) {
-            System.err.println("Error Message: " + e.getMessage());
-            System.err.println("Error Code   : " + e.getErrorCode());
-            System.err.println("Error String : " + e.getErrorString());
-            System.err.println("Error Request: " + e.getRequestUrl());
-            throw new ConnectorException(String.format("'%s' does not exist or is not accessible", destination),
+            logger.debug(String.format("PUT '%s' failed: %s (code %s, %s) for %s", destination, e.getMessage(),
+                    e.getErrorCode(), e.getErrorString(), e.getRequestUrl()));
+            throw new ConnectorException(String.format("'%s' does not exist or is not accessible: %s", destination, e.getMessage()),
                     ConnectorException.Category.fileNonExistentOrNoAccess);
         }
     }
 
+    /**
+     * Returns the listing of a folder shared by the ATTRs and PUTs made in
+     * it, listing the folder if no recent listing is cached.  PUTs use it
+     * to decide whether a file exists and which unique names are taken
+     * without a request per file.  Sharing needs a positive
+     * {@code AttrPrefetchLimit}, which is 0, and so off, by default.
+     *
+     * @param folder the folder path
+     * @return the attributes of the children by name, or empty if prefetching
+     * is off or the folder is too large or can not be listed
+     * @throws ConnectorPropertyException
+     */
+    private Optional<Map<String,BasicFileAttributeView>> snapshot(Path folder) throws ConnectorPropertyException {
+        int limit = config.getAttrPrefetchLimit();
+        if (limit <= 0) {
+            return Optional.empty();
+        }
+        try {
+            return AttrCache.listing(clientkey, folder, () -> prefetchAttributes(folder, limit));
+        } catch (Exception e) {
+            logger.debug(String.format("folder '%s' could not be listed: %s", folder, e.getMessage()));
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Allocates the next free name of the form {@code base.N.ext} for a
+     * unique PUT.  The names already taken are found in the snapshot of
+     * the folder if there is one, or else with a single {@code startswith}
+     * query selecting only names, and the counter is reserved with
+     * {@link UniqueNames} so that concurrent uploads through this process
+     * do not pick the same name.
+     *
+     * @param path the requested path
+     * @param snapshot the children of the folder by name, or empty
+     * @return the unique path
+     * @throws ServiceException
+     */
+    private Path uniquePath(Path path, Optional<Map<String,BasicFileAttributeView>> snapshot) throws ServiceException {
+        Path parent = path.parent();
+        String fn = path.name();
+        String ext = FilenameUtils.getExtension(fn).replaceFirst("^(?=[^\\.])","."); // prefix with "." unless empty or already "."
+        String base = fn.substring(0, fn.length()-ext.length());
+        Pattern numbered = Pattern.compile(Pattern.quote(base)+"\\.(\\d{1,9})"+Pattern.quote(ext), Pattern.CASE_INSENSITIVE);
+
+        Collection<String> names;
+        if (snapshot.isPresent()) {
+            names = snapshot.get().keySet();
+        } else {
+            // jshare encodes the startswith value twice, so only filter on the
+            // leading characters that encoding leaves alone and match the rest here
+            Matcher safe = Pattern.compile("^[A-Za-z0-9_.-]*").matcher(base+".");
+            safe.find();
+            List<IQueryOption> options = safe.group().isEmpty()
+                    ? Arrays.asList(new Select("Name"))
+                    : Arrays.asList(new Select("Name"), new Filter(new StartsWith("name", safe.group())));
+            names = new ArrayList<>();
+            for (File f : retry(true, () -> service.getFiles(prefix+parent.toString(), options))) {
+                names.add(f.getName());
+            }
+        }
+        int taken = 0;
+        for (String name : names) {
+            Matcher m = numbered.matcher(name);
+            if (m.matches()) {
+                taken = Math.max(taken, Integer.parseInt(m.group(1)));
+            }
+        }
+        int counter = UniqueNames.reserve(clientkey, path, taken);
+        return parent.child(base+"."+counter+ext);
+    }
+
+    /**
+     * Looks up a file by name in its parent folder.
+     *
+     * @param path the file path
+     * @return the file, or empty if it does not exist (or is a folder)
+     */
     private Optional<File> getFile(Path path) {
         if (path.size()==0) {
             // root is a folder
@@ -213,60 +846,115 @@ public class SharePointConnectorClient extends ConnectorClient {
 
         // go search for it
         try {
-            List<IQueryOption> named = Collections.singletonList(new Filter(new IsEqualTo("name",path.name().toString())));
-            List<File> files = service.getFiles(prefix+path.parent().toString(), named);
+            List<IQueryOption> named = Arrays.asList(FILE_FIELDS, new Filter(new IsEqualTo("name",path.name().toString())));
+            List<File> files = retry(true, () -> service.getFiles(prefix+path.parent().toString(), named));
             if (files.size() == 1) {
                 return Optional.of(files.get(0));
             } else if (files.isEmpty()) {
-                System.err.println(named.get(0).toString()+" did not find anything");
+                logger.debug(named.get(1).toString()+" did not find anything");
             } else {
-                System.err.println(named.get(0).toString()+" matched "+files.size()+" files");
+                logger.debug(named.get(1).toString()+" matched "+files.size()+" files");
             }
         } catch (ServiceException e) {
             // this will 404 in case of not found or a folder
-            System.err.println("Error Message: " + e.getMessage());
-            System.err.println("Error Code   : " + e.getErrorCode());
-            System.err.println("Error String : " + e.getErrorString());
-            System.err.println("Error Request: " + e.getRequestUrl());
+            logger.debug(String.format("file '%s' not found: %s", path, e.getMessage()));
         }
         return Optional.empty();
     }
 
+    /**
+     * Looks up a folder by name in its parent folder.
+     *
+     * @param path the folder path
+     * @return the folder, or empty if it does not exist (or is a file)
+     */
     private Optional<Folder> getFolder(Path path) {
         if (path.size()==0) {
             // root folder
             try {
-                return Optional.of(service.getFolder(prefix));
+                return Optional.of(retry(true, () -> service.getFolder(prefix)));
             } catch (ServiceException e) {
-                System.err.println("Error Message: " + e.getMessage());
-                System.err.println("Error Code   : " + e.getErrorCode());
-                System.err.println("Error String : " + e.getErrorString());
-                System.err.println("Error Request: " + e.getRequestUrl());
+                logger.debug(String.format("root folder not found: %s", e.getMessage()));
             }
             return Optional.empty();
         }
 
         // go search for it
         try {
-            List<IQueryOption> named = Collections.singletonList(new Filter(new IsEqualTo("name",path.name().toString())));
-            List<Folder> folders = service.getFolders(prefix+path.parent().toString(), named);
+            List<IQueryOption> named = Arrays.asList(FOLDER_FIELDS, new Filter(new IsEqualTo("name",path.name().toString())));
+            List<Folder> folders = retry(true, () -> service.getFolders(prefix+path.parent().toString(), named));
             if (folders.size() == 1) {
                 return Optional.of(folders.get(0));
             } else if (folders.isEmpty()) {
-                System.err.println(named.get(0).toString()+" did not find anything");
+                logger.debug(named.get(1).toString()+" did not find anything");
             } else {
-                System.err.println(named.get(0).toString()+" matched "+folders.size()+" files");
+                logger.debug(named.get(1).toString()+" matched "+folders.size()+" folders");
             }
         } catch (ServiceException e) {
-            // this will 404 in case of not found or a folder
-            System.err.println("Error Message: " + e.getMessage());
-            System.err.println("Error Code   : " + e.getErrorCode());
-            System.err.println("Error String : " + e.getErrorString());
-            System.err.println("Error Request: " + e.getRequestUrl());
+            // this will 404 in case of not found or a file
+            logger.debug(String.format("folder '%s' not found: %s", path, e.getMessage()));
         }
         return Optional.empty();
     }
 
+    /**
+     * Lists a folder, caching the attributes of each of its children, and
+     * returns them by name.  Nothing is returned if the folder has more
+     * than {@code limit} children, as the listing is then incomplete, or
+     * if it can not be listed.
+     *
+     * @param folder the folder path
+     * @param limit the largest number of children to list
+     * @return the attributes of the children, or empty if there are too many
+     */
+    private Optional<Map<String,BasicFileAttributeView>> prefetchAttributes(Path folder, int limit) {
+        logger.debug(String.format("prefetching attributes in '%s'", folder.toString()));
+        IQueryOption top = new Top(limit+1);
+        Map<String,BasicFileAttributeView> children = new ConcurrentSkipListMap<>(String.CASE_INSENSITIVE_ORDER);
+        try {
+            Future<List<Folder>> folders = Workers.submit(() ->
+                    retry(true, () -> service.getFolders(prefix+folder.toString(), Arrays.asList(FOLDER_FIELDS, top))));
+            List<File> files = retry(true, () -> service.getFiles(prefix+folder.toString(), Arrays.asList(FILE_FIELDS, top)));
+            for (Folder f : Workers.get(folders)) {
+                BasicFileAttributeView attr = new SharePointFolderAttributes(f);
+                AttrCache.put(clientkey, folder.child(f.getName()), attr);
+                children.put(f.getName(), attr);
+            }
+            for (File f : files) {
+                BasicFileAttributeView attr = new SharePointFileAttributes(f);
+                AttrCache.put(clientkey, folder.child(f.getName()), attr);
+                children.put(f.getName(), attr);
+            }
+        } catch (ServiceException e) {
+            // the probes will sort out a missing parent
+            logger.debug(String.format("folder '%s' could not be listed: %s", folder, e.getMessage()));
+            return Optional.empty();
+        }
+        if (children.size() > limit) {
+            return Optional.empty();
+        }
+        return Optional.of(children);
+    }
+
+    /**
+     * Fetches the attributes of a file or folder, probing for a file and
+     * for a folder concurrently so that either costs one round trip.
+     *
+     * @param path the path
+     * @return the attributes, or empty if there is no such file or folder
+     * @throws ServiceException
+     */
+    private Optional<BasicFileAttributeView> fetchAttributes(Path path) throws ServiceException {
+        logger.debug(String.format("fetching attributes for '%s'", path.toString()));
+        Future<Optional<Folder>> folder = Workers.submit(() -> getFolder(path));
+        Optional<File> file = getFile(path);
+        if (file.isPresent()) {
+            folder.cancel(false);
+            return Optional.of(new SharePointFileAttributes(file.get()));
+        }
+        return Workers.get(folder).map(SharePointFolderAttributes::new);
+    }
+
     /**
      * Get the file attribute view associated with a file path
      * 
@@ -286,27 +974,30 @@ public class SharePointConnectorClient extends ConnectorClient {
         if (source.equals(".")) source = ""; // TODO: remove when Harmony is fixed
         Path sourcePath = new Path(source);
 
+        int limit = config.getAttrPrefetchLimit();
+
         Optional<BasicFileAttributeView> attr = Optional.empty();
         try {
             attr = AttrCache.get(clientkey, sourcePath, new Callable<Optional<BasicFileAttributeView>>() {
                 @Override
-                public Optional<BasicFileAttributeView> call() {
-                    logger.debug(String.format("fetching attributes for '%s'", sourcePath.toString()));
-                    Optional<File> file = getFile(sourcePath);
-                    if (file.isPresent()) {
-                        return Optional.of(new SharePointFileAttributes(file.get(), logger));
-                    }
-                    Optional<Folder> folder = getFolder(sourcePath);
-                    if (folder.isPresent()) {
-                        return Optional.of(new SharePointFolderAttributes(folder.get(), logger));
+                public Optional<BasicFileAttributeView> call() throws Exception {
+                    if (limit > 0 && !sourcePath.empty()) {
+                        Path parent = sourcePath.parent();
+                        Optional<Map<String,BasicFileAttributeView>> siblings =
+                                AttrCache.listing(clientkey, parent, () -> prefetchAttributes(parent, limit));
+                        if (siblings.isPresent()) {
+                            // a complete listing: if the name is not there, it does not exist
+                            return Optional.ofNullable(siblings.get().get(sourcePath.name().toString()));
+                        }
                     }
-                    return Optional.empty();
+                    return fetchAttributes(sourcePath);
                 }
             });
         } catch (Exception e) {
             throw new ConnectorException(String.format("error getting attributes for '%s'", source), e);
         }
         if (attr.isPresent()) {
+            logger.debug(String.format("ATTR '%s' is %s", source, attr.get()));
             return attr.get();
         } else {
             throw new ConnectorException(String.format("'%s' does not exist or is not accessible", source),
@@ -321,14 +1012,129 @@ public class SharePointConnectorClient extends ConnectorClient {
         setup();
         Path sourcePath = new Path(source);
 
-        try {
-            service.deleteFile(prefix+sourcePath.toString());
-            AttrCache.invalidate(clientkey, sourcePath);
+        if (!Wildcard.isWildcard(sourcePath.name())) {
+            if (deleteFiles(Collections.singletonList(sourcePath)).containsKey(sourcePath)) {
+                throw new ConnectorException(String.format("'%s' does not exist or is not accessible", source),
+                        ConnectorException.Category.fileNonExistentOrNoAccess);
+            }
             return new ConnectorCommandResult(ConnectorCommandResult.Status.Success);
+        }
+
+        List<Path> matches = new ArrayList<>();
+        try {
+            for (File file : matchFiles(sourcePath)) {
+                matches.add(sourcePath.parent().child(file.getName()));
+            }
         } catch (ServiceException e) {
-            throw new ConnectorException(String.format("'%s' does not exist or is not accessible", source),
+            throw new ConnectorException(String.format("'%s' does not exist or is not accessible", sourcePath.parent()),
+                    ConnectorException.Category.fileNonExistentOrNoAccess);
+        }
+        if (matches.isEmpty()) {
+            throw new ConnectorException(String.format("no files match '%s'", source),
                     ConnectorException.Category.fileNonExistentOrNoAccess);
         }
+        Map<Path,ServiceException> failures = deleteFiles(matches);
+        logger.debug(String.format("DELETE '%s' deleted %d of %d files", source, matches.size()-failures.size(), matches.size()));
+        if (failures.isEmpty()) {
+            return new ConnectorCommandResult(ConnectorCommandResult.Status.Success);
+        }
+        return partialFailure(String.format("DELETE '%s'", source), matches.size(), failures);
+    }
+
+    /**
+     * Makes the Error result of a command that failed for some of its
+     * files, listing each failure.
+     *
+     * @param command the command, for the message
+     * @param total the number of files the command was for
+     * @param failures the failures, by path
+     * @return the result
+     */
+    private static ConnectorCommandResult partialFailure(String command, int total, Map<Path,ServiceException> failures) {
+        StringBuilder message = new StringBuilder(String.format("%s failed for %d of %d files:",
+                command, failures.size(), total));
+        failures.forEach((path, e) -> message.append(String.format(" '%s' (%s)", path, e.getMessage())));
+        return new ConnectorCommandResult(Status.Error, message.toString());
+    }
+
+    /**
+     * Lists the files in a folder whose names match a wildcard pattern,
+     * caching their attributes.
+     *
+     * @param pattern the folder and the wildcard pattern for the names
+     * @return the matching files
+     * @throws ConnectorPropertyException
+     * @throws ServiceException
+     */
+    private List<File> matchFiles(Path pattern) throws ConnectorPropertyException, ServiceException {
+        Path folder = pattern.parent();
+        Pattern names = Wildcard.compile(pattern.name());
+        List<File> files = new ArrayList<>();
+        page((options) -> retry(true, () -> service.getFiles(prefix+folder.toString(), options)), FILE_FIELDS, File::getName,
+                config.getDirPageSize(), (f) -> {
+            if (names.matcher(f.getName()).matches()) {
+                AttrCache.put(clientkey, folder.child(f.getName()), new SharePointFileAttributes(f));
+                files.add(f);
+            }
+        });
+        return files;
+    }
+
+    /**
+     * Deletes files concurrently on the {@link Workers} pool, invalidating
+     * the cached attributes of each file deleted and, once, of each folder
+     * deleted from.
+     *
+     * @param paths the files to delete
+     * @return the failures, by path, in the order given; empty if all were deleted
+     */
+    private Map<Path,ServiceException> deleteFiles(List<Path> paths) {
+        Map<Path,ServiceException> failures = remove(paths, false);
+        Set<Path> folders = new HashSet<>();
+        for (Path path : paths) {
+            if (!failures.containsKey(path)) {
+                AttrCache.invalidate(clientkey, path);
+                folders.add(path.parent());
+            }
+        }
+        for (Path folder : folders) {
+            AttrCache.invalidate(clientkey, folder);
+        }
+        return failures;
+    }
+
+    /**
+     * Deletes files or folders concurrently on the {@link Workers} pool,
+     * leaving the {@link AttrCache} to the caller.
+     *
+     * @param paths the files or folders to delete
+     * @param folders true to delete folders, false for files
+     * @return the failures, by path, in the order given; empty if all were deleted
+     */
+    private Map<Path,ServiceException> remove(List<Path> paths, boolean folders) {
+        List<Callable<Void>> tasks = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            String url = prefix+path.toString();
+            tasks.add(() -> retry(false, () -> {
+                if (folders) {
+                    service.deleteFolder(url);
+                } else {
+                    service.deleteFile(url);
+                }
+                return null;
+            }));
+        }
+        List<Future<Void>> deletes = Workers.submitAll(tasks);
+        Map<Path,ServiceException> failures = new LinkedHashMap<>();
+        for (int i = 0; i < paths.size(); i++) {
+            try {
+                Workers.get(deletes.get(i));
+            } catch (ServiceException e) {
+                logger.debug(String.format("'%s' not deleted: %s", paths.get(i), e.getMessage()));
+                failures.put(paths.get(i), e);
+            }
+        }
+        return failures;
     }
 
     @Command(name = MKDIR)
@@ -340,7 +1146,9 @@ public class SharePointConnectorClient extends ConnectorClient {
         Path sourcePath = new Path(source);
 
         try {
-            service.createFolder(prefix+sourcePath.toString());
+            Folder folder = retry(true, () -> service.createFolder(prefix+sourcePath.toString()));
+            AttrCache.put(clientkey, sourcePath, new SharePointFolderAttributes(folder));
+            AttrCache.invalidate(clientkey, sourcePath.parent());
             return new ConnectorCommandResult(ConnectorCommandResult.Status.Success);
         } catch (ServiceException e) {
             throw new ConnectorException("MKDIR cannot create folder "+source, e);
@@ -354,39 +1162,238 @@ public class SharePointConnectorClient extends ConnectorClient {
         setup();
         if (source.equals(".")) source = ""; // TODO: remove when Harmony is fixed
         Path sourcePath = new Path(source);
+        if (sourcePath.size() <= 1) {
+            throw new ConnectorException(String.format("RMDIR cannot delete '%s': the site and its libraries can not be deleted", source));
+        }
 
         try {
-            service.deleteFolder(prefix+sourcePath.toString());
-            AttrCache.invalidate(clientkey, sourcePath);
+            retry(false, () -> {
+                service.deleteFolder(prefix+sourcePath.toString());
+                return null;
+            });
             return new ConnectorCommandResult(ConnectorCommandResult.Status.Success);
         } catch (ServiceException e) {
-            throw new ConnectorException("RMDIR cannot delete folder "+source, e);
+            // only a tree too large for the list view threshold is deleted piecemeal
+            if (!Retrier.overThreshold(e) || !getFolder(sourcePath).isPresent()) {
+                throw new ConnectorException("RMDIR cannot delete folder "+source, e);
+            }
+            logger.debug(String.format("RMDIR '%s' refused (%s), deleting the tree bottom-up", source, e.getMessage()));
+            try {
+                List<Path> files = new ArrayList<>();
+                Map<Path,ServiceException> failures = deleteTree(sourcePath, files);
+                if (failures.isEmpty()) {
+                    return new ConnectorCommandResult(ConnectorCommandResult.Status.Success);
+                }
+                return partialFailure(String.format("RMDIR '%s'", source), files.size(), failures);
+            } catch (ServiceException tree) {
+                throw new ConnectorException("RMDIR cannot delete folder "+source, tree);
+            }
+        } finally {
+            AttrCache.invalidateTree(clientkey, sourcePath);
+            AttrCache.invalidate(clientkey, sourcePath.parent());
         }
     }
 
+    /**
+     * Deletes a folder tree from the bottom up, for when SharePoint refuses
+     * to delete it in one request.  The files are deleted concurrently on
+     * the {@link Workers} pool, then the folders a level at a time from the
+     * deepest, and finally the folder itself.  Deleting stops at the first
+     * level with a failure, leaving the rest of the tree in place.
+     *
+     * @param folder the folder
+     * @param files receives the path of each file and folder in the tree
+     * @return the files and folders that could not be deleted, by path; empty on success
+     * @throws ConnectorPropertyException
+     * @throws ServiceException if the tree can not be listed or the folder deleted
+     */
+    private Map<Path,ServiceException> deleteTree(Path folder, List<Path> files)
+            throws ConnectorPropertyException, ServiceException {
+        NavigableMap<Integer,List<Path>> levels = listTree(folder, files);
+        Map<Path,ServiceException> failures = remove(files, false);
+        for (List<Path> level : levels.descendingMap().values()) {
+            if (!failures.isEmpty()) {
+                break;
+            }
+            files.addAll(level);
+            failures.putAll(remove(level, true));
+        }
+        if (failures.isEmpty()) {
+            retry(false, () -> {
+                service.deleteFolder(prefix+folder.toString());
+                return null;
+            });
+        }
+        return failures;
+    }
+
+    /**
+     * Lists a folder tree, concurrently like a recursive DIR.
+     *
+     * @param folder the folder
+     * @param files receives the path of each file in the tree
+     * @return the paths of the subfolders in the tree, by size, each level in path order
+     * @throws ConnectorPropertyException
+     * @throws ServiceException
+     */
+    private NavigableMap<Integer,List<Path>> listTree(Path folder, List<Path> files)
+            throws ConnectorPropertyException, ServiceException {
+        NavigableMap<Integer,List<Path>> levels = new TreeMap<>();
+        FolderWalker<Map.Entry<Path,Boolean>> walker = new FolderWalker<>(folder.toString(), folder, config.getDirPageSize(),
+                (path, entry) -> new AbstractMap.SimpleImmutableEntry<>(path, entry.isDir()));
+        for (Map.Entry<Path,Boolean> child : Workers.get(Workers.pool().submit(walker))) {
+            Path path = child.getKey();
+            if (child.getValue()) {
+                levels.computeIfAbsent(path.size(), (size) -> new ArrayList<>()).add(path);
+            } else {
+                files.add(path);
+            }
+        }
+        return levels;
+    }
+
     @Command(name = RENAME)
     public ConnectorCommandResult rename(OtherCommand rename) throws ConnectorException {
         String source = rename.getSource();
         String destination = rename.getDestination();
         logger.debug(String.format("RENAME '%s' '%s'", source, destination));
         setup();
+        if (source.equals(".")) source = ""; // TODO: remove when Harmony is fixed
+        if (destination.equals(".")) destination = ""; // TODO: remove when Harmony is fixed
         Path sourcePath = new Path(source);
         Path destinationPath = new Path(destination);
 
-        Optional<File> sourceFile = getFile(sourcePath);
+        if (sourcePath.size() <= 1 || destinationPath.size() <= 1) {
+            throw new ConnectorException(String.format("RENAME cannot rename '%s' to '%s': the site and its libraries can not be renamed",
+                    source, destination));
+        }
+        // names are not case sensitive, but a rename may change just the case of a name
+        if (destinationPath.startsWith(sourcePath) || (destinationPath.size() > sourcePath.size()
+                && new Path(destination.toLowerCase()).startsWith(new Path(source.toLowerCase())))) {
+            throw new ConnectorException(String.format("RENAME cannot rename '%s' to '%s': '%s' is inside '%s'",
+                    source, destination, destination, source));
+        }
+
         try {
-            if (sourceFile.isPresent()) {
-                if (service.moveFile(prefix+sourcePath.toString(), prefix+destinationPath.toString(), MoveOperation.OVERWRITE)) {
-                    return new ConnectorCommandResult(ConnectorCommandResult.Status.Success);
-                } else {
-                    return new ConnectorCommandResult(Status.Error, String.format("RENAME '%s' '%s' failed.", source, destination));
+            boolean moved;
+            try {
+                moved = retry(false, () -> service.moveFile(prefix+sourcePath.toString(), prefix+destinationPath.toString(), MoveOperation.OVERWRITE));
+            } catch (ServiceException e) {
+                // not a file that could be moved: look for a folder, or nothing at all
+                if (getFolder(sourcePath).isPresent()) {
+                    return renameFolder(source, destination, sourcePath, destinationPath);
+                } else if (!getFile(sourcePath).isPresent()) {
+                    throw new ConnectorException(String.format("'%s' does not exist or is not accessible", source),
+                            ConnectorException.Category.fileNonExistentOrNoAccess);
                 }
+                throw e;
+            }
+            if (moved) {
+                AttrCache.move(clientkey, sourcePath, destinationPath);
+                AttrCache.invalidate(clientkey, sourcePath.parent());
+                AttrCache.invalidate(clientkey, destinationPath.parent());
+                return new ConnectorCommandResult(ConnectorCommandResult.Status.Success);
             } else {
-                throw new ConnectorException(String.format("'%s' does not exist or is not accessible", source),
-                        ConnectorException.Category.fileNonExistentOrNoAccess);
+                return new ConnectorCommandResult(Status.Error, String.format("RENAME '%s' '%s' failed.", source, destination));
             }
         } catch (ServiceException e) {
             throw new ConnectorException(String.format("RENAME cannot rename '%s' to '%s'", source, destination), e);
         }
     }
+
+    /**
+     * Renames a folder with {@link #moveFolder(Path, Path, List)}, provided
+     * nothing exists at the destination.
+     *
+     * @param source the folder, for messages
+     * @param destination the new name, for messages
+     * @param sourcePath the folder
+     * @param destinationPath the new path
+     * @return the result
+     * @throws ConnectorException
+     * @throws ServiceException
+     */
+    private ConnectorCommandResult renameFolder(String source, String destination, Path sourcePath, Path destinationPath)
+            throws ConnectorException, ServiceException {
+        if (getFile(destinationPath).isPresent() || getFolder(destinationPath).isPresent()) {
+            throw new ConnectorException(String.format("RENAME cannot rename '%s' to '%s': '%s' already exists",
+                    source, destination, destination));
+        }
+        List<Path> files = new ArrayList<>();
+        Map<Path,ServiceException> failures = moveFolder(sourcePath, destinationPath, files);
+        if (failures.isEmpty()) {
+            return new ConnectorCommandResult(ConnectorCommandResult.Status.Success);
+        }
+        return partialFailure(String.format("RENAME '%s' '%s'", source, destination), files.size(), failures);
+    }
+
+    /**
+     * Moves a folder and its whole tree on the server.  jshare moves and
+     * copies single files on the server, but not folders, so the folders
+     * are created at the destination a level at a time, the files are moved into them concurrently on the
+     * {@link Workers} pool, and the emptied source tree is deleted.  No file
+     * content passes through the client.  If any file can not be moved, the
+     * source tree is left in place holding the files that remain.
+     *
+     * @param from the folder
+     * @param to the new path, which should not exist
+     * @param files receives the path of each file in the tree
+     * @return the files that could not be moved, by path; empty on success
+     * @throws ConnectorPropertyException
+     * @throws ServiceException if the tree can not be listed or a folder created
+     */
+    private Map<Path,ServiceException> moveFolder(Path from, Path to, List<Path> files)
+            throws ConnectorPropertyException, ServiceException {
+        Map<Integer,List<Path>> levels = listTree(from, files);
+        logger.debug(String.format("moving '%s' to '%s': %d folders, %d files", from, to,
+                levels.values().stream().mapToInt(List::size).sum(), files.size()));
+
+        Map<Path,ServiceException> failures = new LinkedHashMap<>();
+        boolean moved = false;
+        try {
+            retry(true, () -> service.createFolder(prefix+to.toString()));
+            for (List<Path> level : levels.values()) {
+                List<Callable<Folder>> tasks = new ArrayList<>(level.size());
+                for (Path folder : level) {
+                    tasks.add(() -> retry(true, () -> service.createFolder(prefix+folder.move(from, to).toString())));
+                }
+                for (Future<Folder> create : Workers.submitAll(tasks)) {
+                    Workers.get(create);
+                }
+            }
+
+            List<Callable<Boolean>> tasks = new ArrayList<>(files.size());
+            for (Path file : files) {
+                String url = prefix+file.move(from, to).toString();
+                tasks.add(() -> retry(false, () -> service.moveFile(prefix+file.toString(), url, MoveOperation.OVERWRITE)));
+            }
+            List<Future<Boolean>> moves = Workers.submitAll(tasks);
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    if (!Workers.get(moves.get(i))) {
+                        failures.put(files.get(i), new ServiceException("move failed", null, prefix+files.get(i).toString()));
+                    }
+                } catch (ServiceException e) {
+                    logger.debug(String.format("'%s' not moved: %s", files.get(i), e.getMessage()));
+                    failures.put(files.get(i), e);
+                }
+            }
+            if (failures.isEmpty()) {
+                retry(false, () -> {
+                    service.deleteFolder(prefix+from.toString());
+                    return null;
+                });
+                AttrCache.move(clientkey, from, to);
+                moved = true;
+            }
+        } finally {
+            if (!moved) {
+                AttrCache.invalidateTree(clientkey, from);
+                AttrCache.invalidateTree(clientkey, to);
+            }
+            AttrCache.invalidate(clientkey, from.parent());
+            AttrCache.invalidate(clientkey, to.parent());
+        }
+        return failures;
+    }
 }
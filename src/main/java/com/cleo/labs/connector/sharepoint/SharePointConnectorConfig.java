@@ -67,4 +67,139 @@ public class SharePointConnectorConfig {
         return schema.domain.getValue(client);
     }
 
+    /**
+     * Gets the attribute cache spec property
+     * @return the cache spec, blank for the default or "disabled"
+     * @throws ConnectorPropertyException
+     */
+    public String getAttrCacheSpec() throws ConnectorPropertyException {
+        return schema.attrCacheSpec.getValue(client);
+    }
+
+    /**
+     * Gets the DIR page size property
+     * @return the page size, 0 or less to list in a single request
+     * @throws ConnectorPropertyException
+     */
+    public int getDirPageSize() throws ConnectorPropertyException {
+        return schema.dirPageSize.getValue(client);
+    }
+
+    /**
+     * Gets the DIR recursive property
+     * @return true to list subfolders recursively
+     * @throws ConnectorPropertyException
+     */
+    public boolean getDirRecursive() throws ConnectorPropertyException {
+        return schema.dirRecursive.getValue(client);
+    }
+
+    /**
+     * Gets the DIR delta property
+     * @return true to reuse unchanged folder listings
+     * @throws ConnectorPropertyException
+     */
+    public boolean getDirDelta() throws ConnectorPropertyException {
+        return schema.dirDelta.getValue(client);
+    }
+
+    /**
+     * Gets the ATTR prefetch limit property
+     * @return the largest folder to list on an attribute cache miss, 0 to disable
+     * @throws ConnectorPropertyException
+     */
+    public int getAttrPrefetchLimit() throws ConnectorPropertyException {
+        return schema.attrPrefetchLimit.getValue(client);
+    }
+
+    /**
+     * Gets the optimistic PUT property
+     * @return true to overwrite without checking whether the file exists
+     * @throws ConnectorPropertyException
+     */
+    public boolean getOptimisticPut() throws ConnectorPropertyException {
+        return schema.optimisticPut.getValue(client);
+    }
+
+    /**
+     * Gets the upload spool threshold property
+     * @return the smallest file size in MB to spool before uploading, 0 to disable
+     * @throws ConnectorPropertyException
+     */
+    public int getUploadSpoolThreshold() throws ConnectorPropertyException {
+        return schema.uploadSpoolThreshold.getValue(client);
+    }
+
+    /**
+     * Gets the download segment size property
+     * @return the segment size in MB, 0 to download over a single connection
+     * @throws ConnectorPropertyException
+     */
+    public int getDownloadSegmentSize() throws ConnectorPropertyException {
+        return schema.downloadSegmentSize.getValue(client);
+    }
+
+    /**
+     * Gets the download parallelism property
+     * @return the number of segments downloaded at once
+     * @throws ConnectorPropertyException
+     */
+    public int getDownloadParallelism() throws ConnectorPropertyException {
+        return schema.downloadParallelism.getValue(client);
+    }
+
+    /**
+     * Gets the download read ahead property
+     * @return the number of files read ahead, 0 to disable
+     * @throws ConnectorPropertyException
+     */
+    public int getDownloadReadAhead() throws ConnectorPropertyException {
+        return schema.downloadReadAhead.getValue(client);
+    }
+
+    /**
+     * Gets the download read ahead limit property
+     * @return the largest file size in KB read ahead
+     * @throws ConnectorPropertyException
+     */
+    public int getDownloadReadAheadLimit() throws ConnectorPropertyException {
+        return schema.downloadReadAheadLimit.getValue(client);
+    }
+
+    /**
+     * Gets the throttle retries property
+     * @return the number of times a throttled or failed request is retried
+     * @throws ConnectorPropertyException
+     */
+    public int getThrottleRetries() throws ConnectorPropertyException {
+        return schema.throttleRetries.getValue(client);
+    }
+
+    /**
+     * Gets the throttle retry delay property
+     * @return the delay in milliseconds before the first retry
+     * @throws ConnectorPropertyException
+     */
+    public int getThrottleRetryDelay() throws ConnectorPropertyException {
+        return schema.throttleRetryDelay.getValue(client);
+    }
+
+    /**
+     * Gets the request rate property
+     * @return the most requests per second for the connection, 0 for no limit
+     * @throws ConnectorPropertyException
+     */
+    public int getRequestRate() throws ConnectorPropertyException {
+        return schema.requestRate.getValue(client);
+    }
+
+    /**
+     * Gets the request burst property
+     * @return the number of requests allowed at once after a quiet period
+     * @throws ConnectorPropertyException
+     */
+    public int getRequestBurst() throws ConnectorPropertyException {
+        return schema.requestBurst.getValue(client);
+    }
+
 }
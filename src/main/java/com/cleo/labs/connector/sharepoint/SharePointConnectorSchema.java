@@ -1,6 +1,7 @@
 package com.cleo.labs.connector.sharepoint;
 
 import static com.cleo.connector.api.property.CommonPropertyGroups.Connect;
+import static com.cleo.connector.api.property.CommonPropertyGroups.ConnectAdvanced;
 
 import java.io.IOException;
 
@@ -54,6 +55,138 @@ public class SharePointConnectorSchema extends ConnectorConfig {
             .setAllowedInSetCommand(false)
             .build();
 
+    @Property
+    final IConnectorProperty<String> attrCacheSpec = new PropertyBuilder<>("AttrCacheSpec", "")
+            .setDescription("The attribute cache specification, e.g. "+AttrCache.DEFAULT_SPEC+
+                    " (blank for the default, \"disabled\" to disable the cache), shared by all connections.")
+            .setGroup(ConnectAdvanced)
+            .setRequired(false)
+            .setAllowedInSetCommand(false)
+            .build();
+
+    @Property
+    final IConnectorProperty<Integer> dirPageSize = new PropertyBuilder<>("DirPageSize", 0)
+            .setDescription("The number of folders or files to request per page when listing a directory, "+
+                    "for folders over the list view threshold (0 to list in a single request).")
+            .setGroup(ConnectAdvanced)
+            .setRequired(false)
+            .setAllowedInSetCommand(true)
+            .build();
+
+    @Property
+    final IConnectorProperty<Boolean> dirRecursive = new PropertyBuilder<>("DirRecursive", false)
+            .setDescription("List the contents of all subfolders as well, walking the folder tree concurrently.")
+            .setGroup(ConnectAdvanced)
+            .setRequired(false)
+            .setAllowedInSetCommand(true)
+            .build();
+
+    @Property
+    final IConnectorProperty<Boolean> dirDelta = new PropertyBuilder<>("DirDelta", false)
+            .setDescription("Reuse the previous listing of a folder when the SharePoint change log "+
+                    "shows no changes since it was taken.")
+            .setGroup(ConnectAdvanced)
+            .setRequired(false)
+            .setAllowedInSetCommand(true)
+            .build();
+
+    @Property
+    final IConnectorProperty<Integer> attrPrefetchLimit = new PropertyBuilder<>("AttrPrefetchLimit", 0)
+            .setDescription("On an attribute cache miss, list the parent folder and cache the attributes "+
+                    "of all of its children if it has at most this many.  PUTs to the folder share the same "+
+                    "listing instead of a lookup each (0 to disable both).")
+            .setGroup(ConnectAdvanced)
+            .setRequired(false)
+            .setAllowedInSetCommand(true)
+            .build();
+
+    @Property
+    final IConnectorProperty<Boolean> optimisticPut = new PropertyBuilder<>("OptimisticPut", false)
+            .setDescription("PUT creates or overwrites the file in a single request, without first "+
+                    "checking whether it exists.")
+            .setGroup(ConnectAdvanced)
+            .setRequired(false)
+            .setAllowedInSetCommand(true)
+            .build();
+
+    @Property
+    final IConnectorProperty<Integer> uploadSpoolThreshold = new PropertyBuilder<>("UploadSpoolThreshold", 0)
+            .setDescription("Copy files of at least this many MB (or of unknown size) to a local spool "+
+                    "before uploading, so a failed upload is retried without reading the source again (0 to disable).")
+            .setGroup(ConnectAdvanced)
+            .setRequired(false)
+            .setAllowedInSetCommand(true)
+            .build();
+
+    @Property
+    final IConnectorProperty<Integer> downloadSegmentSize = new PropertyBuilder<>("DownloadSegmentSize", 0)
+            .setDescription("Download files larger than this many MB in segments fetched concurrently "+
+                    "(0 to download over a single connection).")
+            .setGroup(ConnectAdvanced)
+            .setRequired(false)
+            .setAllowedInSetCommand(true)
+            .build();
+
+    @Property
+    final IConnectorProperty<Integer> downloadParallelism = new PropertyBuilder<>("DownloadParallelism", 4)
+            .setDescription("The number of segments of a file downloaded at once.")
+            .setGroup(ConnectAdvanced)
+            .setRequired(false)
+            .setAllowedInSetCommand(true)
+            .build();
+
+    @Property
+    final IConnectorProperty<Integer> downloadReadAhead = new PropertyBuilder<>("DownloadReadAhead", 0)
+            .setDescription("The number of files following a downloaded file in its folder that are read ahead "+
+                    "concurrently for the downloads expected to follow (0 to disable).")
+            .setGroup(ConnectAdvanced)
+            .setRequired(false)
+            .setAllowedInSetCommand(true)
+            .build();
+
+    @Property
+    final IConnectorProperty<Integer> downloadReadAheadLimit = new PropertyBuilder<>("DownloadReadAheadLimit", 1024)
+            .setDescription("Only files of at most this many KB are read ahead.")
+            .setGroup(ConnectAdvanced)
+            .setRequired(false)
+            .setAllowedInSetCommand(true)
+            .build();
+
+    @Property
+    final IConnectorProperty<Integer> throttleRetries = new PropertyBuilder<>("ThrottleRetries", 5)
+            .setDescription("The number of times a request is retried when SharePoint is throttling "+
+                    "(429 or 503) or the request fails transiently (0 to disable).")
+            .setGroup(ConnectAdvanced)
+            .setRequired(false)
+            .setAllowedInSetCommand(true)
+            .build();
+
+    @Property
+    final IConnectorProperty<Integer> throttleRetryDelay = new PropertyBuilder<>("ThrottleRetryDelay", 1000)
+            .setDescription("The delay in milliseconds before the first retry of a throttled or failed request, "+
+                    "doubled for each further retry, when SharePoint does not ask for a delay with Retry-After.")
+            .setGroup(ConnectAdvanced)
+            .setRequired(false)
+            .setAllowedInSetCommand(true)
+            .build();
+
+    @Property
+    final IConnectorProperty<Integer> requestRate = new PropertyBuilder<>("RequestRate", 0)
+            .setDescription("The most requests per second made to the site by all actions on this connection "+
+                    "together (0 for no limit).")
+            .setGroup(ConnectAdvanced)
+            .setRequired(false)
+            .setAllowedInSetCommand(false)
+            .build();
+
+    @Property
+    final IConnectorProperty<Integer> requestBurst = new PropertyBuilder<>("RequestBurst", 10)
+            .setDescription("The number of requests that may be made at once, above RequestRate, after a quiet period.")
+            .setGroup(ConnectAdvanced)
+            .setRequired(false)
+            .setAllowedInSetCommand(false)
+            .build();
+
     @Property
     final IConnectorProperty<Integer> commandRetries = CommonProperties.of(CommonProperty.CommandRetries);
 
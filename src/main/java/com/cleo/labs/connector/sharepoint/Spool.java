@@ -0,0 +1,65 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A local copy of an upload source, so that a failed upload can be sent
+ * again without reading the source a second time.  The copy is deleted
+ * when the spool is closed.
+ */
+public class Spool implements Closeable {
+
+    /**
+     * The size of the copy buffer, allocated for each spool and released
+     * once the source is copied.
+     */
+    public static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final File file;
+    private final long length;
+
+    /**
+     * Copies {@code source} to a temporary file, closing it when done.
+     *
+     * @param source the upload source
+     * @throws IOException
+     */
+    public Spool(InputStream source) throws IOException {
+        file = File.createTempFile("sharepoint", ".spool");
+        try (InputStream in = source; OutputStream out = new FileOutputStream(file)) {
+            length = IOUtils.copyLarge(in, out, new byte[BUFFER_SIZE]);
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Opens a new stream over the spooled content.
+     *
+     * @return the stream, which the caller must close
+     * @throws IOException
+     */
+    public InputStream open() throws IOException {
+        return new FileInputStream(file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A token bucket limiting the rate of requests to a SharePoint site.  The
+ * bucket holds up to {@code burst} tokens and is refilled at {@code rate}
+ * tokens per second; each request takes a token, waiting for one if the
+ * bucket is empty.  Waiting requests reserve their tokens in turn, so they
+ * are released evenly spaced rather than all at once.
+ * <p>
+ * There is one bucket per client key, shared by every client and
+ * {@code Service} for the connection, so that concurrent actions together
+ * stay below the site's throttling limit.
+ */
+public class TokenBucket {
+
+    private static final ConcurrentMap<String,TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private double rate = 0;
+    private double burst = 1;
+    private double tokens = 1;
+    private long refilled = System.nanoTime();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    /**
+     * Returns the bucket for a connection, creating an unlimited one if
+     * there is none.
+     *
+     * @param clientkey the client key
+     * @return the bucket
+     */
+    public static TokenBucket of(String clientkey) {
+        return buckets.computeIfAbsent(clientkey, (k) -> new TokenBucket());
+    }
+
+    /**
+     * Sets the rate and burst size, keeping the tokens already in the
+     * bucket up to the new burst size.  A bucket that was unlimited starts
+     * out full.
+     *
+     * @param rate the requests per second, 0 or less for no limit
+     * @param burst the number of requests that may be made at once after an idle period
+     * @return {@code this}
+     */
+    public synchronized TokenBucket configure(double rate, int burst) {
+        refill(System.nanoTime());
+        boolean unlimited = this.rate <= 0;
+        this.rate = rate;
+        this.burst = Math.max(1, burst);
+        this.tokens = unlimited ? this.burst : Math.min(tokens, this.burst);
+        return this;
+    }
+
+    private void refill(long now) {
+        if (rate > 0) {
+            tokens = Math.min(burst, tokens + (now - refilled) * rate / TimeUnit.SECONDS.toNanos(1));
+        }
+        refilled = now;
+    }
+
+    /**
+     * Takes a token, returning how long the caller must wait before it is
+     * available.  The bucket goes into debt for waiting callers.
+     *
+     * @return the wait in nanoseconds, 0 if a token is available now
+     */
+    synchronized long reserve() {
+        if (rate <= 0) {
+            return 0;
+        }
+        refill(System.nanoTime());
+        tokens -= 1;
+        if (tokens >= 0) {
+            return 0;
+        }
+        return (long) (-tokens * TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+
+    /**
+     * Takes a token, waiting until one is available.
+     *
+     * @throws InterruptedException
+     */
+    public void acquire() throws InterruptedException {
+        long wait = reserve();
+        if (wait > 0) {
+            waits.increment();
+            waitNanos.add(wait);
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Returns the number of requests that had to wait for a token.
+     *
+     * @return the number of waits
+     */
+    public long getWaitCount() {
+        return waits.sum();
+    }
+
+    /**
+     * Returns the total time requests waited for tokens.
+     *
+     * @return the total wait in milliseconds
+     */
+    public long getWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.sum());
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("rate=%s burst=%d waits=%d wait=%dms",
+                rate > 0 ? String.valueOf(rate) : "unlimited", (int) burst, getWaitCount(), getWaitMillis());
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Reserves the counters used to make unique file names of the form
+ * {@code base.N.ext}, so that concurrent uploads of the same name through
+ * this process are never given the same counter, even before either upload
+ * is visible in a listing.  Reservations are forgotten a minute after the
+ * last one for a name, by which time the listing shows the uploaded files.
+ */
+public class UniqueNames {
+
+    private static final Cache<AttrCache.Key,Integer> reserved = CacheBuilder.newBuilder()
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * Reserves the next counter for a name.
+     *
+     * @param clientkey the client key
+     * @param path the name, as the path of the file without a counter
+     * @param taken the highest counter found in a listing of the folder
+     * @return a counter greater than {@code taken} and than any reserved before
+     */
+    public static int reserve(String clientkey, Path path, int taken) {
+        // SharePoint names are not case sensitive
+        AttrCache.Key key = new AttrCache.Key(clientkey, new Path(path.toString().toLowerCase()));
+        return reserved.asMap().merge(key, taken+1, (last, next) -> Math.max(last+1, next));
+    }
+
+    private UniqueNames() {
+    }
+
+}
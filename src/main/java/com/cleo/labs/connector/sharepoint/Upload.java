@@ -0,0 +1,90 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+import com.cleo.connector.api.ConnectorException;
+import com.independentsoft.share.ServiceException;
+
+/**
+ * Sends the content of an upload, sending it again as long as a failure
+ * allows.  A failure the caller can handle by changing what it sends, such
+ * as a name found taken, is sent again at once; otherwise the content is
+ * sent again after a delay if the {@link Backoff} allows it.  Each attempt
+ * opens the content anew.
+ */
+public class Upload {
+
+    /**
+     * Opens the content to send, once for each attempt.
+     */
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Sends the content, returning what the server made of it.
+     *
+     * @param <T> the result type
+     */
+    public interface Sender<T> {
+        /**
+         * Sends the content.
+         *
+         * @param in the content
+         * @param retry true if an earlier attempt failed
+         * @return the result
+         * @throws ServiceException
+         */
+        T send(InputStream in, boolean retry) throws ServiceException;
+    }
+
+    /**
+     * Decides whether a failed attempt should be sent again at once, after
+     * changing what the {@link Sender} will do.
+     */
+    public interface Again {
+        boolean test(ServiceException e) throws ServiceException, ConnectorException;
+    }
+
+    /**
+     * Decides whether a failed attempt should be sent again after a delay,
+     * waiting out the delay if so.
+     */
+    public interface Backoff {
+        boolean backoff(ServiceException e, int attempt);
+    }
+
+    /**
+     * Sends the content until an attempt succeeds, or a failure is neither
+     * accepted by {@code again} nor by {@code backoff}.
+     *
+     * @param source opens the content
+     * @param sender sends the content
+     * @param again accepts a failure the sender can handle if called again
+     * @param backoff accepts a failure worth sending again after a delay
+     * @param debug receives the message of each failure sent again
+     * @return the result of the successful attempt
+     * @throws ServiceException the failure of the last attempt
+     * @throws ConnectorException
+     * @throws IOException if the content can not be read
+     */
+    public static <T> T send(Source source, Sender<T> sender, Again again, Backoff backoff, Consumer<String> debug)
+            throws ServiceException, ConnectorException, IOException {
+        for (int attempt = 0; ; attempt++) {
+            try (InputStream in = source.open()) {
+                return sender.send(in, attempt > 0);
+            } catch (ServiceException e) {
+                if (!again.test(e) && !backoff.backoff(e, attempt)) {
+                    throw e;
+                }
+                debug.accept(e.getMessage());
+            }
+        }
+    }
+
+    private Upload() {
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.util.regex.Pattern;
+
+/**
+ * Matches file names against wildcard patterns, in which {@code *} matches
+ * any run of characters and {@code ?} any single character.  Matching
+ * ignores case, as SharePoint does.
+ */
+public class Wildcard {
+
+    /**
+     * Returns whether a name contains wildcard characters.
+     *
+     * @param name the name
+     * @return true if it is a pattern
+     */
+    public static boolean isWildcard(String name) {
+        return name.indexOf('*') >= 0 || name.indexOf('?') >= 0;
+    }
+
+    /**
+     * Compiles a wildcard pattern to a regular expression matching whole names.
+     *
+     * @param wildcard the pattern
+     * @return the regular expression
+     */
+    public static Pattern compile(String wildcard) {
+        StringBuilder regex = new StringBuilder();
+        int literal = 0;
+        for (int i = 0; i < wildcard.length(); i++) {
+            char c = wildcard.charAt(i);
+            if (c == '*' || c == '?') {
+                if (i > literal) {
+                    regex.append(Pattern.quote(wildcard.substring(literal, i)));
+                }
+                regex.append(c == '*' ? ".*" : ".");
+                literal = i+1;
+            }
+        }
+        if (literal < wildcard.length()) {
+            regex.append(Pattern.quote(wildcard.substring(literal)));
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+    }
+
+    private Wildcard() {
+    }
+
+}
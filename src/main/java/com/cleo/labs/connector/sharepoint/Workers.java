@@ -0,0 +1,161 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import com.independentsoft.share.ServiceException;
+
+/**
+ * A shared {@link ForkJoinPool} for issuing SharePoint requests
+ * concurrently, with helpers to unwrap the {@link ServiceException} a
+ * failed request throws.
+ * <p>
+ * Requests block, on the network and while a {@link Retrier} or
+ * {@link TokenBucket} waits, so tasks make them through
+ * {@link ForkJoinPool#managedBlock}: the pool adds a thread while one is
+ * blocked, and a slow request or a read ahead does not hold up the other
+ * tasks.  The requests in flight are bounded by the connection pool of
+ * the session instead, and an operation submitting a task per file uses
+ * {@link #submitAll} to keep its own share of them bounded.
+ */
+public class Workers {
+
+    /**
+     * The number of tasks the shared pool keeps running, and the number of
+     * tasks {@link #submitAll} keeps in flight for one operation.  This
+     * should not exceed {@link ServiceCache#MAX_CONNECTIONS}.
+     */
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    private static final ForkJoinPool pool = new ForkJoinPool(DEFAULT_PARALLELISM);
+
+    public static ForkJoinPool pool() {
+        return pool;
+    }
+
+    /**
+     * Runs a blocking task on the shared pool.
+     *
+     * @param task the task
+     * @return its future
+     */
+    public static <T> Future<T> submit(Callable<T> task) {
+        return pool.submit(() -> block(task));
+    }
+
+    /**
+     * Runs blocking tasks on the shared pool, no more than
+     * {@link #DEFAULT_PARALLELISM} at a time, waiting to submit each task
+     * until there is room for it.
+     *
+     * @param tasks the tasks
+     * @return their futures, in the order given
+     */
+    public static <T> List<Future<T>> submitAll(List<? extends Callable<T>> tasks) {
+        Semaphore window = new Semaphore(DEFAULT_PARALLELISM);
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            window.acquireUninterruptibly();
+            try {
+                futures.add(submit(() -> {
+                    try {
+                        return task.call();
+                    } finally {
+                        window.release();
+                    }
+                }));
+            } catch (RuntimeException e) {
+                window.release();
+                throw e;
+            }
+        }
+        return futures;
+    }
+
+    /**
+     * Calls a task that blocks, letting the pool compensate for the
+     * blocked thread when called from one of its workers.
+     *
+     * @param task the task
+     * @return its result
+     * @throws Exception the exception thrown by the task
+     */
+    public static <T> T block(Callable<T> task) throws Exception {
+        Blocker<T> blocker = new Blocker<>(task);
+        ForkJoinPool.managedBlock(blocker);
+        if (blocker.failure != null) {
+            throw blocker.failure;
+        }
+        return blocker.result;
+    }
+
+    private static class Blocker<T> implements ForkJoinPool.ManagedBlocker {
+        private final Callable<T> task;
+        private T result = null;
+        private Exception failure = null;
+        private boolean done = false;
+
+        public Blocker(Callable<T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public boolean block() {
+            try {
+                result = task.call();
+            } catch (Exception e) {
+                failure = e;
+            }
+            done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+    }
+
+    /**
+     * Waits for a task and returns its result, rethrowing a
+     * {@link ServiceException} or {@link RuntimeException} from the task
+     * as is.  A {@code ServiceException} wrapped by the fork-join framework,
+     * or by a {@link CompletionException}, is unwrapped.
+     *
+     * @param future the task
+     * @return its result
+     * @throws ServiceException
+     */
+    public static <T> T get(Future<T> future) throws ServiceException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException("interrupted", e, null);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // fork-join tasks wrap checked exceptions, and wrap them again when rethrown across threads
+            for (Throwable t = cause; t != null; t = t.getCause()) {
+                if (t instanceof ServiceException) {
+                    throw (ServiceException)t;
+                }
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new ServiceException(cause.getMessage(), cause, null);
+        }
+    }
+
+    private Workers() {
+    }
+
+}
@@ -0,0 +1,703 @@
+package com.cleo.labs.connector.sharepoint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An embedded stand-in for the parts of the SharePoint REST API used by
+ * jshare's {@code Service}: context info, the site, folder and file lookup,
+ * folder and file collections with {@code $select}, {@code $filter}
+ * ({@code eq} and {@code startswith} on {@code Name}), {@code $top},
+ * {@code $skip} and {@code $orderby}, file content with {@code Range},
+ * file add, update, move, copy and delete, folder add and delete, and the
+ * site change log.  Files and folders are held in memory.
+ * <p>
+ * Every request can be delayed by a fixed latency, and requests are
+ * counted, so that clients can be exercised and measured without a
+ * SharePoint server, and requests can be throttled to exercise retries.
+ * Point a client at {@link #getUrl()}; the document library
+ * {@link #LIBRARY} exists from the start.
+ */
+public class SharePointStandIn implements Closeable {
+
+    public static final String SITE = "/sites/standin";
+    public static final String LIBRARY = "Shared Documents";
+
+    private static final String ATOM = "http://www.w3.org/2005/Atom";
+    private static final String D = "http://schemas.microsoft.com/ado/2007/08/dataservices";
+    private static final String M = "http://schemas.microsoft.com/ado/2007/08/dataservices/metadata";
+
+    /**
+     * .NET ticks (100ns since 0001-01-01) at the Java epoch, as used in change tokens.
+     */
+    private static final long EPOCH_TICKS = 621355968000000000L;
+
+    private static final Pattern FOLDER = Pattern.compile(
+            "web/GetFolderByServerRelativeUrl\\('(.*?)'\\)(/folders|/files|/files/Add\\(overwrite=(true|false),url='(.*)'\\))?");
+    private static final Pattern FILE = Pattern.compile(
+            "web/GetFileByServerRelativeUrl\\('(.*?)'\\)(/\\$value|/MoveTo\\(newurl='(.*)',flags=(\\d+)\\)|/CopyTo\\(strnewurl='(.*)',boverwrite=(true|false)\\))?");
+    private static final Pattern ADD_FOLDER = Pattern.compile("web/folders/add\\('(.*)'\\)");
+    private static final Pattern EQ = Pattern.compile("(?i)\\s*name\\s+eq\\s+'(.*)'\\s*");
+    private static final Pattern STARTSWITH = Pattern.compile("(?i)\\s*startswith\\(\\s*name\\s*,\\s*'(.*)'\\s*\\)\\s*");
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+    private static final Pattern CHANGE_TOKEN = Pattern.compile("'StringValue'\\s*:\\s*'[^;']*;[^;']*;[^;']*;(\\d+);");
+
+    /**
+     * A file or folder.
+     */
+    private static class Node {
+        private final String url;
+        private final boolean folder;
+        private final byte[] content;
+        private final Date modified;
+        private final String id;
+
+        private Node(String url, boolean folder, byte[] content, String id) {
+            this.url = url;
+            this.folder = folder;
+            this.content = content;
+            this.modified = new Date();
+            this.id = id;
+        }
+
+        private String name() {
+            return url.substring(url.lastIndexOf('/')+1);
+        }
+    }
+
+    /**
+     * An entry in the site change log.
+     */
+    private static class Change {
+        private final long ticks;
+        private final boolean folder;
+        private final int type;
+        private final String id;
+
+        private Change(boolean folder, int type, String id) {
+            this.ticks = EPOCH_TICKS + System.currentTimeMillis() * 10000L;
+            this.folder = folder;
+            this.type = type;
+            this.id = id;
+        }
+    }
+
+    private static final int ADD = 1;
+    private static final int UPDATE = 2;
+    private static final int DELETE = 3;
+    private static final int RENAME = 4;
+
+    /**
+     * A failed request, answered with {@code status}.
+     */
+    private static class Failure extends Exception {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        private Failure(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final ConcurrentSkipListMap<String,Node> nodes = new ConcurrentSkipListMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final ConcurrentLinkedQueue<Change> changes = new ConcurrentLinkedQueue<>();
+    private final String webId = UUID.randomUUID().toString();
+    private final AtomicLong requests = new AtomicLong();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private volatile long latency = 0;
+    private final AtomicLong throttled = new AtomicLong();
+    private volatile int retryAfter = -1;
+    private volatile int threshold = Integer.MAX_VALUE;
+    private volatile boolean ranges = true;
+    private volatile boolean conflicts = false;
+
+    /**
+     * Starts a stand-in on a free local port.
+     *
+     * @throws IOException
+     */
+    public SharePointStandIn() throws IOException {
+        nodes.put(SITE, new Node(SITE, true, null, UUID.randomUUID().toString()));
+        mkdirs(SITE+"/"+LIBRARY);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext(SITE+"/_api/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Returns the site URL to connect to.
+     *
+     * @return the site URL
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:"+server.getAddress().getPort()+SITE+"/";
+    }
+
+    /**
+     * Sets a delay added to every request.
+     *
+     * @param millis the delay in milliseconds
+     * @return this
+     */
+    public SharePointStandIn latency(long millis) {
+        this.latency = millis;
+        return this;
+    }
+
+    /**
+     * Answers the next {@code requests} requests, other than context info
+     * requests, with 429 Too Many Requests.
+     *
+     * @param requests the number of requests to throttle
+     * @param retryAfter the Retry-After header to send in seconds, or -1 for none
+     * @return this
+     */
+    public SharePointStandIn throttle(int requests, int retryAfter) {
+        this.retryAfter = retryAfter;
+        this.throttled.set(requests);
+        return this;
+    }
+
+    /**
+     * Refuses to delete folders holding more than {@code items} files and
+     * folders, as SharePoint does for trees over the list view threshold.
+     *
+     * @param items the most items a deleted folder may hold
+     * @return this
+     */
+    public SharePointStandIn threshold(int items) {
+        this.threshold = items;
+        return this;
+    }
+
+    /**
+     * Honors or ignores {@code Range} headers, sending the whole file when
+     * they are ignored, as some proxies do.
+     *
+     * @param honored false to ignore ranges
+     * @return this
+     */
+    public SharePointStandIn ranges(boolean honored) {
+        this.ranges = honored;
+        return this;
+    }
+
+    /**
+     * Refuses to replace existing files by adding them with overwrite,
+     * answering 409 Conflict, while still allowing their content to be
+     * updated.
+     *
+     * @param refused true to refuse overwrites
+     * @return this
+     */
+    public SharePointStandIn conflicts(boolean refused) {
+        this.conflicts = refused;
+        return this;
+    }
+
+    /**
+     * Returns the number of requests received, including the context info
+     * requests jshare makes before most calls.
+     *
+     * @return the request count
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Creates or replaces a file directly, creating its folders as needed.
+     *
+     * @param path the path under the site, e.g. {@code Shared Documents/a.txt}
+     * @param content the content
+     */
+    public synchronized void putFile(String path, byte[] content) {
+        String url = url(path);
+        mkdirs(parent(url));
+        Node old = nodes.put(url, new Node(url, false, content, UUID.randomUUID().toString()));
+        changes.add(new Change(false, old == null ? ADD : UPDATE, url));
+    }
+
+    /**
+     * Creates a folder directly, with its parents as needed.
+     *
+     * @param path the path under the site
+     */
+    public synchronized void putFolder(String path) {
+        mkdirs(url(path));
+    }
+
+    /**
+     * Returns the content of a file, or {@code null} if there is none.
+     *
+     * @param path the path under the site
+     * @return the content, or null
+     */
+    public byte[] getFile(String path) {
+        Node node = nodes.get(url(path));
+        return node == null || node.folder ? null : node.content;
+    }
+
+    /**
+     * Returns whether there is a file or folder at {@code path}.
+     *
+     * @param path the path under the site
+     * @return true if it exists
+     */
+    public boolean exists(String path) {
+        return nodes.containsKey(url(path));
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static String url(String path) {
+        return normalize(SITE+"/"+path);
+    }
+
+    private static String normalize(String url) {
+        String normalized = ("/"+url).replaceAll("/+", "/");
+        return normalized.length() > 1 && normalized.endsWith("/") ? normalized.substring(0, normalized.length()-1) : normalized;
+    }
+
+    private static String parent(String url) {
+        return url.substring(0, Math.max(0, url.lastIndexOf('/')));
+    }
+
+    private void mkdirs(String url) {
+        if (!nodes.containsKey(url)) {
+            mkdirs(parent(url));
+            nodes.put(url, new Node(url, true, null, UUID.randomUUID().toString()));
+            changes.add(new Change(true, ADD, url));
+        }
+    }
+
+    private List<Node> children(String url, boolean folders) {
+        return nodes.subMap(url+"/", true, url+"/\uffff", true).values().stream()
+                .filter((n) -> n.folder == folders && parent(n.url).equalsIgnoreCase(url))
+                .collect(Collectors.toList());
+    }
+
+    private Node lookup(String url, boolean folder) throws Failure {
+        Node node = nodes.get(normalize(url));
+        if (node == null || node.folder != folder) {
+            throw new Failure(404, (folder ? "Folder" : "File")+" Not Found.");
+        }
+        return node;
+    }
+
+    /*------------------------------------------------------------------------
+     * request handling
+     *----------------------------------------------------------------------*/
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+            byte[] body = read(exchange.getRequestBody());
+            String method = exchange.getRequestHeaders().getFirst("X-HTTP-Method");
+            if (method == null) {
+                method = exchange.getRequestMethod();
+            }
+            String api = exchange.getRequestURI().getPath().substring((SITE+"/_api/").length());
+            Map<String,String> query = query(exchange.getRequestURI().getRawQuery());
+            if (!api.equals("contextinfo") && throttled.getAndUpdate((n) -> Math.max(0, n-1)) > 0) {
+                if (retryAfter >= 0) {
+                    exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfter));
+                }
+                throw new Failure(429, "The request has been throttled.");
+            }
+            route(exchange, method, api, query, body);
+        } catch (Failure e) {
+            String xml = "<?xml version=\"1.0\" encoding=\"utf-8\"?><m:error xmlns:m=\""+M+"\"><m:code>-1, "+
+                    e.status+"</m:code><m:message xml:lang=\"en-US\">"+escape(e.getMessage())+"</m:message></m:error>";
+            send(exchange, e.status, "application/xml;charset=utf-8", xml.getBytes(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange, String method, String api, Map<String,String> query, byte[] body)
+            throws IOException, Failure {
+        Matcher m;
+        if (api.equals("contextinfo") && method.equals("POST")) {
+            xml(exchange, contextInfo());
+        } else if (api.equals("web") && method.equals("GET")) {
+            xml(exchange, web());
+        } else if (api.equals("web/GetChanges") && method.equals("POST")) {
+            xml(exchange, getChanges(new String(body, StandardCharsets.UTF_8)));
+        } else if ((m = ADD_FOLDER.matcher(api)).matches() && method.equals("POST")) {
+            xml(exchange, addFolder(literal(m.group(1))));
+        } else if ((m = FOLDER.matcher(api)).matches()) {
+            String url = normalize(literal(m.group(1)));
+            String op = m.group(2) == null ? "" : m.group(2);
+            if (op.isEmpty() && method.equals("GET")) {
+                xml(exchange, entry(lookup(url, true), null));
+            } else if (op.isEmpty() && method.equals("DELETE")) {
+                deleteFolder(url);
+                send(exchange, 200, null, new byte[0]);
+            } else if ((op.equals("/folders") || op.equals("/files")) && method.equals("GET")) {
+                xml(exchange, list(url, op.equals("/folders"), query));
+            } else if (op.startsWith("/files/Add") && method.equals("POST")) {
+                xml(exchange, addFile(url, literal(m.group(4)), Boolean.parseBoolean(m.group(3)), body));
+            } else {
+                throw new Failure(400, "Unsupported folder request: "+method+" "+api);
+            }
+        } else if ((m = FILE.matcher(api)).matches()) {
+            String url = normalize(literal(m.group(1)));
+            String op = m.group(2) == null ? "" : m.group(2);
+            if (op.isEmpty() && method.equals("GET")) {
+                xml(exchange, entry(lookup(url, false), null));
+            } else if (op.isEmpty() && method.equals("DELETE")) {
+                deleteFile(url);
+                send(exchange, 200, null, new byte[0]);
+            } else if (op.equals("/$value") && method.equals("GET")) {
+                download(exchange, lookup(url, false));
+            } else if (op.equals("/$value") && method.equals("PUT")) {
+                updateFile(url, body);
+                send(exchange, 204, null, null);
+            } else if (op.startsWith("/MoveTo") && method.equals("POST")) {
+                moveFile(url, normalize(literal(m.group(3))), (Integer.parseInt(m.group(4)) & 1) != 0);
+                xml(exchange, nothing("MoveTo"));
+            } else if (op.startsWith("/CopyTo") && method.equals("POST")) {
+                copyFile(url, normalize(literal(m.group(5))), Boolean.parseBoolean(m.group(6)));
+                xml(exchange, nothing("CopyTo"));
+            } else {
+                throw new Failure(400, "Unsupported file request: "+method+" "+api);
+            }
+        } else {
+            throw new Failure(400, "Unsupported request: "+method+" "+api);
+        }
+    }
+
+    /*------------------------------------------------------------------------
+     * operations
+     *----------------------------------------------------------------------*/
+
+    private synchronized String addFolder(String url) throws Failure {
+        url = normalize(url);
+        lookup(parent(url), true);
+        Node node = nodes.get(url);
+        if (node == null) {
+            node = new Node(url, true, null, UUID.randomUUID().toString());
+            nodes.put(url, node);
+            changes.add(new Change(true, ADD, node.id));
+        } else if (!node.folder) {
+            throw new Failure(400, "A file with the name "+url+" already exists.");
+        }
+        return entry(node, null);
+    }
+
+    private synchronized void deleteFolder(String url) throws Failure {
+        Node folder = lookup(url, true);
+        if (nodes.subMap(url+"/", true, url+"/\uffff", true).size() > threshold) {
+            throw new Failure(500, "The attempted operation is prohibited because it exceeds the list view threshold.");
+        }
+        nodes.subMap(url+"/", true, url+"/\uffff", true).clear();
+        nodes.remove(url);
+        changes.add(new Change(true, DELETE, folder.id));
+    }
+
+    private synchronized String addFile(String folder, String name, boolean overwrite, byte[] content) throws Failure {
+        lookup(folder, true);
+        String url = normalize(folder+"/"+name);
+        Node old = nodes.get(url);
+        if (old != null && (old.folder || !overwrite)) {
+            throw new Failure(400, "A file with the name "+url+" already exists.");
+        }
+        if (old != null && conflicts) {
+            throw new Failure(409, "Save Conflict.");
+        }
+        Node node = new Node(url, false, content, old == null ? UUID.randomUUID().toString() : old.id);
+        nodes.put(url, node);
+        changes.add(new Change(false, old == null ? ADD : UPDATE, node.id));
+        return entry(node, null);
+    }
+
+    private synchronized void updateFile(String url, byte[] content) throws Failure {
+        Node old = lookup(url, false);
+        nodes.put(old.url, new Node(old.url, false, content, old.id));
+        changes.add(new Change(false, UPDATE, old.id));
+    }
+
+    private synchronized void deleteFile(String url) throws Failure {
+        Node old = lookup(url, false);
+        nodes.remove(old.url);
+        changes.add(new Change(false, DELETE, old.id));
+    }
+
+    private synchronized void moveFile(String from, String to, boolean overwrite) throws Failure {
+        Node old = lookup(from, false);
+        lookup(parent(to), true);
+        Node existing = nodes.get(to);
+        if (existing != null && (existing.folder || !overwrite)) {
+            throw new Failure(400, "A file with the name "+to+" already exists.");
+        }
+        nodes.remove(old.url);
+        nodes.put(to, new Node(to, false, old.content, old.id));
+        changes.add(new Change(false, RENAME, old.id));
+    }
+
+    private synchronized void copyFile(String from, String to, boolean overwrite) throws Failure {
+        Node old = lookup(from, false);
+        lookup(parent(to), true);
+        Node existing = nodes.get(to);
+        if (existing != null && (existing.folder || !overwrite)) {
+            throw new Failure(400, "A file with the name "+to+" already exists.");
+        }
+        Node copy = new Node(to, false, old.content, UUID.randomUUID().toString());
+        nodes.put(to, copy);
+        changes.add(new Change(false, ADD, copy.id));
+    }
+
+    private void download(HttpExchange exchange, Node file) throws IOException, Failure {
+        byte[] content = file.content;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null && ranges) {
+            Matcher m = RANGE.matcher(range);
+            if (!m.matches() || Long.parseLong(m.group(1)) >= content.length) {
+                throw new Failure(416, "Requested Range Not Satisfiable");
+            }
+            int start = Integer.parseInt(m.group(1));
+            int end = m.group(2).isEmpty() ? content.length-1 : (int) Math.min(Long.parseLong(m.group(2)), content.length-1);
+            exchange.getResponseHeaders().set("Content-Range", "bytes "+start+"-"+end+"/"+content.length);
+            send(exchange, 206, "application/octet-stream", Arrays.copyOfRange(content, start, end+1));
+        } else {
+            send(exchange, 200, "application/octet-stream", content);
+        }
+    }
+
+    private String list(String url, boolean folders, Map<String,String> query) throws Failure {
+        lookup(url, true);
+        List<Node> list = children(url, folders);
+        String filter = query.get("$filter");
+        if (filter != null) {
+            Matcher m;
+            Predicate<Node> test;
+            if ((m = EQ.matcher(filter)).matches()) {
+                String name = m.group(1);
+                test = (n) -> n.name().equalsIgnoreCase(name);
+            } else if ((m = STARTSWITH.matcher(filter)).matches()) {
+                String start = m.group(1).toLowerCase();
+                test = (n) -> n.name().toLowerCase().startsWith(start);
+            } else {
+                throw new Failure(400, "Unsupported $filter: "+filter);
+            }
+            list = list.stream().filter(test).collect(Collectors.toList());
+        }
+        if (query.containsKey("$orderby")) {
+            if (!query.get("$orderby").trim().equalsIgnoreCase("Name")) {
+                throw new Failure(400, "Unsupported $orderby: "+query.get("$orderby"));
+            }
+            list.sort(Comparator.comparing(Node::name, String.CASE_INSENSITIVE_ORDER));
+        }
+        int skip = query.containsKey("$skip") ? Integer.parseInt(query.get("$skip")) : 0;
+        int top = query.containsKey("$top") ? Integer.parseInt(query.get("$top")) : Integer.MAX_VALUE;
+        list = list.stream().skip(skip).limit(top).collect(Collectors.toList());
+
+        Set<String> select = null;
+        if (query.containsKey("$select")) {
+            select = new HashSet<>(Arrays.asList(query.get("$select").split("\\s*,\\s*")));
+        }
+        StringBuilder feed = new StringBuilder(header("feed"));
+        for (Node node : list) {
+            feed.append(properties(node, select, "entry"));
+        }
+        return feed.append("</feed>").toString();
+    }
+
+    private String getChanges(String body) {
+        Matcher m = CHANGE_TOKEN.matcher(body);
+        long since = m.find() ? Long.parseLong(m.group(1)) : 0L;
+        StringBuilder feed = new StringBuilder(header("feed"));
+        for (Change change : changes) {
+            if (change.ticks > since) {
+                String token = "1;2;"+webId+";"+change.ticks+";-1";
+                feed.append("<entry><category term=\"").append(change.folder ? "SP.ChangeFolder" : "SP.ChangeFile")
+                    .append("\" scheme=\"http://schemas.microsoft.com/ado/2007/08/dataservices/scheme\"/>")
+                    .append("<content type=\"application/xml\"><m:properties>")
+                    .append("<d:ChangeToken m:type=\"SP.ChangeToken\"><d:StringValue>").append(token).append("</d:StringValue></d:ChangeToken>")
+                    .append("<d:ChangeType m:type=\"Edm.Int32\">").append(change.type).append("</d:ChangeType>")
+                    .append("<d:SiteId m:type=\"Edm.Guid\">").append(webId).append("</d:SiteId>")
+                    .append("<d:Time m:type=\"Edm.DateTime\">").append(date(new Date((change.ticks-EPOCH_TICKS)/10000L))).append("</d:Time>")
+                    .append("<d:UniqueId m:type=\"Edm.Guid\">").append(change.id).append("</d:UniqueId>")
+                    .append("<d:WebId m:type=\"Edm.Guid\">").append(webId).append("</d:WebId>")
+                    .append("</m:properties></content></entry>");
+            }
+        }
+        return feed.append("</feed>").toString();
+    }
+
+    /*------------------------------------------------------------------------
+     * XML
+     *----------------------------------------------------------------------*/
+
+    private static String header(String element) {
+        return "<?xml version=\"1.0\" encoding=\"utf-8\"?><"+element+" xmlns=\""+ATOM+"\" xmlns:d=\""+D+"\" xmlns:m=\""+M+"\">";
+    }
+
+    private String entry(Node node, Set<String> select) {
+        return header("entry")+properties(node, select, null)+"</entry>";
+    }
+
+    private String properties(Node node, Set<String> select, String wrap) {
+        Map<String,String> props = new HashMap<>();
+        props.put("Name", escape(node.name()));
+        props.put("ServerRelativeUrl", escape(node.url));
+        props.put("UniqueId", node.id);
+        props.put("TimeCreated", date(node.modified));
+        props.put("TimeLastModified", date(node.modified));
+        if (node.folder) {
+            props.put("ItemCount", String.valueOf(children(node.url, true).size()+children(node.url, false).size()));
+        } else {
+            props.put("Length", String.valueOf(node.content.length));
+            props.put("Exists", "true");
+        }
+        StringBuilder xml = new StringBuilder();
+        if (wrap != null) {
+            xml.append('<').append(wrap).append('>');
+        }
+        xml.append("<category term=\"").append(node.folder ? "SP.Folder" : "SP.File").append("\"/>");
+        xml.append("<content type=\"application/xml\"><m:properties>");
+        for (Map.Entry<String,String> prop : props.entrySet()) {
+            if (select == null || select.contains(prop.getKey())) {
+                xml.append("<d:").append(prop.getKey()).append('>').append(prop.getValue())
+                   .append("</d:").append(prop.getKey()).append('>');
+            }
+        }
+        xml.append("</m:properties></content>");
+        if (wrap != null) {
+            xml.append("</").append(wrap).append('>');
+        }
+        return xml.toString();
+    }
+
+    private String contextInfo() {
+        return "<?xml version=\"1.0\" encoding=\"utf-8\"?><d:GetContextWebInformation xmlns:d=\""+D+"\" xmlns:m=\""+M+
+                "\" m:type=\"SP.ContextWebInformation\"><d:FormDigestTimeoutSeconds m:type=\"Edm.Int32\">1800</d:FormDigestTimeoutSeconds>"+
+                "<d:FormDigestValue>0x0000,"+new SimpleDateFormat("dd MMM yyyy HH:mm:ss Z").format(new Date())+"</d:FormDigestValue>"+
+                "<d:LibraryVersion>15.0.0.0</d:LibraryVersion><d:SiteFullUrl>"+escape(getUrl())+"</d:SiteFullUrl>"+
+                "<d:SupportedSchemaVersions m:type=\"Collection(Edm.String)\"><d:element>14.0.0.0</d:element>"+
+                "<d:element>15.0.0.0</d:element></d:SupportedSchemaVersions><d:WebFullUrl>"+escape(getUrl())+
+                "</d:WebFullUrl></d:GetContextWebInformation>";
+    }
+
+    private String web() {
+        return header("entry")+"<category term=\"SP.Web\"/><content type=\"application/xml\"><m:properties>"+
+                "<d:Id m:type=\"Edm.Guid\">"+webId+"</d:Id><d:ServerRelativeUrl>"+SITE+"</d:ServerRelativeUrl>"+
+                "<d:Title>Stand-in</d:Title><d:Url>"+escape(getUrl())+"</d:Url></m:properties></content></entry>";
+    }
+
+    private static String nothing(String function) {
+        return "<?xml version=\"1.0\" encoding=\"utf-8\"?><d:"+function+" xmlns:d=\""+D+"\" xmlns:m=\""+M+"\" m:null=\"true\"/>";
+    }
+
+    private static String date(Date date) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(date);
+    }
+
+    private static String escape(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    /*------------------------------------------------------------------------
+     * HTTP
+     *----------------------------------------------------------------------*/
+
+    private static Map<String,String> query(String raw) throws UnsupportedEncodingException {
+        Map<String,String> query = new HashMap<>();
+        if (raw != null) {
+            for (String param : raw.split("&")) {
+                int eq = param.indexOf('=');
+                if (eq > 0) {
+                    query.put(decode(param.substring(0, eq)), decode(param.substring(eq+1)));
+                }
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Returns the value of an OData string literal, in which quotes are doubled.
+     */
+    private static String literal(String s) {
+        return s.replace("''", "'");
+    }
+
+    private static String decode(String s) throws UnsupportedEncodingException {
+        return URLDecoder.decode(s.replace("+", "%2B"), "UTF-8");
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static void xml(HttpExchange exchange, String xml) throws IOException {
+        send(exchange, 200, "application/atom+xml;type=entry;charset=utf-8", xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        if (contentType != null) {
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+        }
+        if (body == null || body.length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+}
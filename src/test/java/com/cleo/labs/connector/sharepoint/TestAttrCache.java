@@ -0,0 +1,189 @@
+package com.cleo.labs.connector.sharepoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TestAttrCache {
+
+    private static final Optional<BasicFileAttributeView> MISSING = Optional.empty();
+
+    private Path p(String s) {
+        return new Path(s);
+    }
+
+    private boolean cached(String clientkey, String path) throws Exception {
+        return AttrCache.get(clientkey, p(path), () -> MISSING).isPresent();
+    }
+
+    @Test
+    public void invalidateTree() throws Exception {
+        String clientkey = UUID.randomUUID().toString();
+        for (String path : new String[] {"a", "a/b", "a/b/c", "a/bc", "ab"}) {
+            AttrCache.put(clientkey, p(path), new SharePointEmptyAttributes(null));
+        }
+        AttrCache.invalidateTree(clientkey, p("a/b"));
+        assertTrue(cached(clientkey, "a"));
+        assertFalse(cached(clientkey, "a/b"));
+        assertFalse(cached(clientkey, "a/b/c"));
+        assertTrue(cached(clientkey, "a/bc"));
+        assertTrue(cached(clientkey, "ab"));
+    }
+
+    @Test
+    public void move() throws Exception {
+        String clientkey = UUID.randomUUID().toString();
+        BasicFileAttributeView folder = new SharePointEmptyAttributes(null);
+        BasicFileAttributeView file = new SharePointEmptyAttributes(null);
+        AttrCache.put(clientkey, p("a/b"), folder);
+        AttrCache.put(clientkey, p("a/b/c"), file);
+        AttrCache.put(clientkey, p("x/y/stale"), file);
+        AttrCache.move(clientkey, p("a/b"), p("x/y"));
+        assertFalse(cached(clientkey, "a/b"));
+        assertFalse(cached(clientkey, "a/b/c"));
+        assertFalse(cached(clientkey, "x/y/stale"));
+        assertSame(folder, AttrCache.get(clientkey, p("x/y"), () -> MISSING).get());
+        assertSame(file, AttrCache.get(clientkey, p("x/y/c"), () -> MISSING).get());
+    }
+
+    @Test
+    public void listing() throws Exception {
+        String clientkey = UUID.randomUUID().toString();
+        Map<String,BasicFileAttributeView> children = Collections.emptyMap();
+        int[] listed = {0};
+        for (int i=0; i<2; i++) {
+            AttrCache.listing(clientkey, p("a/b"), () -> { listed[0]++; return Optional.of(children); });
+        }
+        assertEquals(1, listed[0]);
+        AttrCache.invalidateTree(clientkey, p("a"));
+        AttrCache.listing(clientkey, p("a/b"), () -> { listed[0]++; return Optional.of(children); });
+        assertEquals(2, listed[0]);
+        AttrCache.invalidate(clientkey, p("a/b"));
+        AttrCache.listing(clientkey, p("a/b"), () -> { listed[0]++; return Optional.of(children); });
+        assertEquals(3, listed[0]);
+    }
+
+    @Test
+    public void following() throws Exception {
+        String clientkey = UUID.randomUUID().toString();
+        for (String path : new String[] {"a/f1", "a/f2", "a/sub/f", "a/f3", "a/big", "b/f"}) {
+            AttrCache.put(clientkey, p(path), new SharePointFileAttributes(path.endsWith("big") ? 100 : 1, new Date()));
+        }
+        AttrCache.put(clientkey, p("a/sub"), new SharePointFolderAttributes(new Date()));
+        Map<Path,SharePointAttributes> next = AttrCache.following(clientkey, p("a/big"), 10,
+                (attr) -> attr.isRegularFile() && attr.size() < 10);
+        assertEquals(Arrays.asList(p("a/f1"), p("a/f2"), p("a/f3")), new ArrayList<>(next.keySet()));
+        next = AttrCache.following(clientkey, p("a/f1"), 1, (attr) -> true);
+        assertEquals(Arrays.asList(p("a/f2")), new ArrayList<>(next.keySet()));
+        assertTrue(AttrCache.following(clientkey, p("a/sub"), 10, (attr) -> true).isEmpty());
+    }
+
+    @Test
+    public void readAhead() throws Exception {
+        String clientkey = UUID.randomUUID().toString();
+        byte[] content = {1};
+        SharePointAttributes attr = new SharePointFileAttributes(1, new Date());
+        ReadAhead.fetch(clientkey, p("a/f"), attr, () -> content);
+        ReadAhead.Read read = ReadAhead.take(clientkey, p("a/f"));
+        assertSame(attr, read.getAttributes());
+        assertSame(content, Workers.get(read.getContent()));
+        assertNull(ReadAhead.take(clientkey, p("a/f")));
+        ReadAhead.fetch(clientkey, p("a/f"), attr, () -> content);
+        AttrCache.invalidate(clientkey, p("a/f"));
+        assertNull(ReadAhead.take(clientkey, p("a/f")));
+        ReadAhead.fetch(clientkey, p("a/b/f"), attr, () -> content);
+        AttrCache.invalidateTree(clientkey, p("a"));
+        assertNull(ReadAhead.take(clientkey, p("a/b/f")));
+    }
+
+    @Test
+    public void readAheadOnce() throws Exception {
+        String clientkey = UUID.randomUUID().toString();
+        SharePointAttributes attr = new SharePointFileAttributes(1, new Date());
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ReadAhead.fetch(clientkey, p("a/f"), attr, () -> {
+            reads.incrementAndGet();
+            started.countDown();
+            release.await();
+            return new byte[] {1};
+        });
+        started.await();
+        // already being read, so not read again
+        ReadAhead.fetch(clientkey, p("a/f"), attr, () -> {
+            reads.incrementAndGet();
+            return new byte[] {2};
+        });
+        release.countDown();
+        ReadAhead.Read read = ReadAhead.take(clientkey, p("a/f"));
+        assertEquals(1, Workers.get(read.getContent())[0]);
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    public void written() throws Exception {
+        String clientkey = UUID.randomUUID().toString();
+        Map<String,BasicFileAttributeView> children = new ConcurrentSkipListMap<>(String.CASE_INSENSITIVE_ORDER);
+        AttrCache.listing(clientkey, p("a"), () -> Optional.of(children));
+        AttrCache.put(clientkey, p("a"), new SharePointEmptyAttributes(null));
+        BasicFileAttributeView file = new SharePointFileAttributes(1, new Date());
+        AttrCache.written(clientkey, p("a/F"), file);
+        assertSame(file, AttrCache.get(clientkey, p("a/F"), () -> MISSING).get());
+        assertFalse(cached(clientkey, "a"));
+        Map<String,BasicFileAttributeView> listed = AttrCache.listing(clientkey, p("a"), () -> Optional.empty()).get();
+        assertSame(file, listed.get("f"));
+        AttrCache.written(clientkey, p("a/f"), null);
+        assertFalse(cached(clientkey, "a/f"));
+        assertFalse(AttrCache.listing(clientkey, p("a"), () -> Optional.empty()).isPresent());
+    }
+
+    @Test
+    public void stats() throws Exception {
+        String clientkey = UUID.randomUUID().toString();
+        AttrCache.put(clientkey, p("a"), new SharePointEmptyAttributes(null));
+        assertTrue(cached(clientkey, "a"));
+        assertFalse(cached(clientkey, "b"));
+        assertFalse(cached(clientkey, "b"));
+        AttrCacheStats stats = AttrCache.stats(clientkey);
+        assertEquals(2, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(2, stats.getSize());
+    }
+
+    @Test
+    public void configure() throws Exception {
+        String a = UUID.randomUUID().toString();
+        String b = UUID.randomUUID().toString();
+        try {
+            AttrCache.configure(a, "maximumSize=100");
+            assertEquals("maximumSize=100", AttrCache.spec());
+            AttrCache.configure(b, "maximumSize=200");
+            assertEquals("maximumSize=200", AttrCache.spec());
+            // a is unchanged, so it does not take the cache back
+            AttrCache.configure(a, "maximumSize=100");
+            assertEquals("maximumSize=200", AttrCache.spec());
+            AttrCache.configure(a, "maximumSize=300");
+            assertEquals("maximumSize=300", AttrCache.spec());
+        } finally {
+            AttrCache.update("");
+        }
+    }
+
+}
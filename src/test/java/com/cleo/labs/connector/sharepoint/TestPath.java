@@ -52,4 +52,38 @@ public class TestPath {
         assertEquals(1, p("a/").size());
         assertEquals(1, p("/a/").size());
     }
+
+    @Test
+    public void equality() {
+        assertEquals(p("a/b/c"), p("a").child("b").child("c"));
+        assertEquals(p("a/b/c").hashCode(), p("a").child(p("b/c")).hashCode());
+        assertEquals(p(""), p("/"));
+        assertNotEquals(p("a/b"), p("a/c"));
+        assertNotEquals(p("a/b"), p("a/b/c"));
+        assertEquals("a/b/c", p("a").child(p("b/c")).toString());
+    }
+
+    @Test
+    public void order() {
+        Path ab = p("a/b");
+        assertTrue(p("a").compareTo(ab) < 0);
+        assertTrue(ab.compareTo(p("a/b/c")) < 0);
+        assertTrue(p("a/b/c/d").compareTo(p("a/b.txt")) < 0);
+        assertTrue(p("a/b/z").compareTo(ab.successor()) < 0);
+        assertTrue(p("a/b ").compareTo(ab.successor()) > 0);
+        assertEquals(0, ab.compareTo(p("a/b")));
+        assertNull(p("").successor());
+    }
+
+    @Test
+    public void prefixes() {
+        Path abc = p("a/b/c");
+        assertTrue(abc.startsWith(p("a/b")));
+        assertTrue(abc.startsWith(abc));
+        assertTrue(abc.startsWith(p("")));
+        assertFalse(abc.startsWith(p("a/c")));
+        assertEquals(p("a"), abc.prefix(1));
+        assertEquals(p("x/y/c"), abc.move(p("a/b"), p("x/y")));
+        assertEquals(p("c"), abc.move(p("a/b"), p("")));
+    }
 }
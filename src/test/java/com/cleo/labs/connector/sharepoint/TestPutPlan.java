@@ -0,0 +1,56 @@
+package com.cleo.labs.connector.sharepoint;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.cleo.labs.connector.sharepoint.Retrier.Failure;
+
+public class TestPutPlan {
+
+    @Test
+    public void testPlain() {
+        PutPlan checked = new PutPlan(false, false, false, false);
+        assertFalse(checked.update(() -> true));
+        assertFalse(checked.overwrite(false));
+        // a failed create may have created the file after all
+        assertTrue(checked.overwrite(true));
+        assertFalse(checked.refused(409));
+        assertFalse(checked.taken(Failure.PERMANENT, () -> true));
+
+        assertTrue(new PutPlan(false, false, false, true).update(() -> false));
+        // a listing may miss a file created since
+        assertTrue(new PutPlan(false, false, true, false).overwrite(false));
+    }
+
+    @Test
+    public void testOptimistic() {
+        PutPlan plan = new PutPlan(false, true, false, false);
+        assertFalse(plan.update(() -> true));
+        assertTrue(plan.overwrite(false));
+        assertFalse(plan.refused(500));
+        assertTrue(plan.refused(409));
+        // checked once: the file is looked for, and never overwritten
+        assertFalse(plan.refused(404));
+        assertTrue(plan.update(() -> true));
+        assertFalse(plan.update(() -> false));
+        assertFalse(plan.overwrite(true));
+    }
+
+    @Test
+    public void testUnique() {
+        PutPlan plan = new PutPlan(true, true, true, true);
+        assertFalse(plan.update(() -> true));
+        assertFalse(plan.overwrite(false));
+        assertFalse(plan.overwrite(true));
+        assertFalse(plan.refused(409));
+        assertFalse(plan.taken(Failure.TRANSIENT, () -> true));
+        assertFalse(plan.taken(Failure.PERMANENT, () -> false));
+        for (int i = 0; i < PutPlan.UNIQUE_RETRIES; i++) {
+            assertTrue(plan.taken(Failure.PERMANENT, () -> true));
+        }
+        assertFalse(plan.taken(Failure.PERMANENT, () -> true));
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.cleo.labs.connector.sharepoint;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Test;
+
+import com.independentsoft.share.ServiceException;
+
+public class TestRangedInputStream {
+
+    private static byte[] content(int length) {
+        byte[] content = new byte[length];
+        new Random(length).nextBytes(content);
+        return content;
+    }
+
+    @Test
+    public void inOrder() throws Exception {
+        for (int length : new int[] {1, 999, 1000, 1001, 10007}) {
+            byte[] content = content(length);
+            try (InputStream in = new RangedInputStream(
+                    (offset, size) -> Arrays.copyOfRange(content, (int) offset, (int) offset + size),
+                    length, 1000, 3)) {
+                assertArrayEquals(content, IOUtils.toByteArray(in));
+            }
+        }
+    }
+
+    @Test
+    public void firstSegmentRead() throws Exception {
+        byte[] content = content(2500);
+        try (InputStream in = new RangedInputStream(
+                (offset, size) -> Arrays.copyOfRange(content, (int) offset, (int) offset + size),
+                content.length, 1000, 2, Arrays.copyOf(content, 1000))) {
+            assertArrayEquals(content, IOUtils.toByteArray(in));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void failure() throws Exception {
+        byte[] content = content(5000);
+        try (InputStream in = new RangedInputStream((offset, size) -> {
+                if (offset >= 2000) {
+                    throw new ServiceException("416 Requested Range Not Satisfiable", null, null);
+                }
+                return Arrays.copyOfRange(content, (int) offset, (int) offset + size);
+            }, content.length, 1000, 2)) {
+            IOUtils.toByteArray(in);
+        }
+    }
+
+    private static HttpResponse response(int status, String contentRange) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, status, "");
+        if (contentRange != null) {
+            response.setHeader("Content-Range", contentRange);
+        }
+        return response;
+    }
+
+    @Test
+    public void totalLength() {
+        assertEquals(10, RangedInputStream.totalLength(response(206, "bytes 0-3/10")));
+        assertEquals(5000000000L, RangedInputStream.totalLength(response(206, "bytes 0-1048575/5000000000")));
+        assertEquals(-1, RangedInputStream.totalLength(response(200, "bytes 0-3/10")));
+        assertEquals(-1, RangedInputStream.totalLength(response(206, "bytes 0-3/*")));
+        assertEquals(-1, RangedInputStream.totalLength(response(206, null)));
+        assertEquals(-1, RangedInputStream.totalLength(null));
+    }
+
+}
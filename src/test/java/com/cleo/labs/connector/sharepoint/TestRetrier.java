@@ -0,0 +1,142 @@
+package com.cleo.labs.connector.sharepoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.ConnectException;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Test;
+
+import com.cleo.labs.connector.sharepoint.Retrier.Failure;
+import com.independentsoft.share.ServiceException;
+
+public class TestRetrier {
+
+    private static HttpResponse response(int status, String retryAfter) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, status, "");
+        if (retryAfter != null) {
+            response.setHeader("Retry-After", retryAfter);
+        }
+        return response;
+    }
+
+    private static ServiceException failure(String message) {
+        return new ServiceException(message, null, "url");
+    }
+
+    @Test
+    public void testClassify() {
+        assertEquals(Failure.THROTTLED, Retrier.classify(failure("429 "), null));
+        assertEquals(Failure.THROTTLED, Retrier.classify(failure("503 Service Unavailable"), null));
+        assertEquals(Failure.TRANSIENT, Retrier.classify(failure("504 Gateway Timeout"), null));
+        assertEquals(Failure.PERMANENT, Retrier.classify(failure("404 Not Found"), null));
+        assertEquals(Failure.PERMANENT, Retrier.classify(failure("400 Bad Request"), response(429, null)));
+        assertEquals(Failure.THROTTLED, Retrier.classify(failure("The server is busy"), response(503, null)));
+        assertEquals(Failure.PERMANENT, Retrier.classify(failure("The file is locked"), response(200, null)));
+        assertEquals(Failure.TRANSIENT, Retrier.classify(new ServiceException("refused", new ConnectException("refused"), "url"), null));
+    }
+
+    @Test
+    public void testStatus() {
+        assertEquals(409, Retrier.status(failure("409 Conflict"), null));
+        assertEquals(404, Retrier.status(failure("The folder is missing"), response(404, null)));
+        assertEquals(0, Retrier.status(failure("The file is locked"), response(200, null)));
+        assertEquals(0, Retrier.status(failure(null), null));
+    }
+
+    @Test
+    public void testOverThreshold() {
+        assertTrue(Retrier.overThreshold(failure("The attempted operation is prohibited because it exceeds the list view threshold.")));
+        assertFalse(Retrier.overThreshold(failure("404 Not Found")));
+        assertFalse(Retrier.overThreshold(failure(null)));
+    }
+
+    @Test
+    public void testRetryAfter() {
+        assertEquals(-1, Retrier.retryAfter(null));
+        assertEquals(-1, Retrier.retryAfter(response(429, null)));
+        assertEquals(-1, Retrier.retryAfter(response(404, "5")));
+        assertEquals(5000, Retrier.retryAfter(response(429, "5")));
+        assertEquals(0, Retrier.retryAfter(response(503, "-1")));
+        long date = Retrier.retryAfter(response(503, DateUtils.formatDate(new Date(System.currentTimeMillis()+30000))));
+        assertTrue(date > 25000 && date <= 30000);
+        assertEquals(-1, Retrier.retryAfter(response(503, "soon")));
+    }
+
+    @Test
+    public void testDelay() {
+        Retrier retrier = new Retrier("testDelay", 5, 100, null);
+        for (int i = 0; i < 100; i++) {
+            long first = retrier.delay(0, -1);
+            assertTrue(first >= 50 && first <= 100);
+            long third = retrier.delay(2, -1);
+            assertTrue(third >= 200 && third <= 400);
+            long asked = retrier.delay(0, 2000);
+            assertTrue(asked >= 2000 && asked < 2100);
+            assertTrue(retrier.delay(40, -1) <= Retrier.MAX_DELAY);
+            assertTrue(retrier.delay(0, Long.MAX_VALUE/2) <= Retrier.MAX_DELAY);
+        }
+    }
+
+    @Test
+    public void testCall() throws Exception {
+        Retrier retrier = new Retrier("testCall", 3, 1, null);
+        AtomicInteger calls = new AtomicInteger();
+        String result = retrier.call(null, true, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw failure("429 ");
+            }
+            return "done";
+        });
+        assertEquals("done", result);
+        assertEquals(3, calls.get());
+        assertEquals(2, Retrier.stats("testCall").getRetryCount());
+
+        calls.set(0);
+        try {
+            retrier.call(null, true, () -> {
+                calls.incrementAndGet();
+                throw failure("503 Service Unavailable");
+            });
+            fail("should give up");
+        } catch (ServiceException e) {
+            assertEquals(4, calls.get());
+            assertEquals(1, Retrier.stats("testCall").getExhaustedCount());
+        }
+    }
+
+    @Test
+    public void testNotRetried() {
+        Retrier retrier = new Retrier("testNotRetried", 3, 1, null);
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            retrier.call(null, true, () -> {
+                calls.incrementAndGet();
+                throw failure("404 Not Found");
+            });
+            fail("should fail");
+        } catch (ServiceException e) {
+            assertEquals(1, calls.get());
+        }
+        calls.set(0);
+        try {
+            // not idempotent: a transient failure may have been processed
+            retrier.call(null, false, () -> {
+                calls.incrementAndGet();
+                throw failure("504 Gateway Timeout");
+            });
+            fail("should fail");
+        } catch (ServiceException e) {
+            assertEquals(1, calls.get());
+        }
+    }
+
+}
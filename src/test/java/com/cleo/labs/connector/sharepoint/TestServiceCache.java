@@ -0,0 +1,96 @@
+package com.cleo.labs.connector.sharepoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.independentsoft.share.Service;
+
+public class TestServiceCache {
+
+    private static final String URL = "http://127.0.0.1:1/sites/test/";
+
+    private static ServiceCache.Session session(String password, int[] loads) {
+        loads[0]++;
+        return new ServiceCache.Session(new Service(URL, "user", password), "/sites/test", null);
+    }
+
+    @Test
+    public void testShared() throws Exception {
+        String clientkey = UUID.randomUUID().toString();
+        int[] loads = {0};
+        ServiceCache.Session first = ServiceCache.get(clientkey, "password", () -> session("password", loads));
+        ServiceCache.Session second = ServiceCache.get(clientkey, "password", () -> session("password", loads));
+        assertSame(first, second);
+        assertEquals(1, loads[0]);
+        assertEquals("/sites/test", first.getPrefix());
+    }
+
+    @Test
+    public void testPasswordChanged() throws Exception {
+        String clientkey = UUID.randomUUID().toString();
+        int[] loads = {0};
+        ServiceCache.Session first = ServiceCache.get(clientkey, "old", () -> session("old", loads));
+        ServiceCache.Session second = ServiceCache.get(clientkey, "new", () -> session("new", loads));
+        assertNotSame(first, second);
+        assertEquals(2, loads[0]);
+        assertSame(second, ServiceCache.get(clientkey, "new", () -> session("new", loads)));
+    }
+
+    @Test
+    public void testPooled() throws Exception {
+        ServiceCache.Session session = ServiceCache.get(UUID.randomUUID().toString(), "password",
+                () -> session("password", new int[1]));
+        assertTrue(session.getService().getClientConnectionManager() instanceof ReclaimingConnectionManager);
+        Service spare = session.borrow();
+        assertNotSame(session.getService(), spare);
+        assertTrue(spare.getClientConnectionManager() instanceof ReclaimingConnectionManager);
+        session.release(spare);
+        assertSame(spare, session.borrow());
+    }
+
+    private static boolean retired(Service service) {
+        return ((ReclaimingConnectionManager) service.getClientConnectionManager()).isRetired();
+    }
+
+    @Test
+    public void testSparesBounded() throws Exception {
+        ServiceCache.Session session = ServiceCache.get(UUID.randomUUID().toString(), "password",
+                () -> session("password", new int[1]));
+        List<Service> spares = new ArrayList<>();
+        for (int i = 0; i <= ServiceCache.MAX_SPARES; i++) {
+            spares.add(session.borrow());
+        }
+        for (Service spare : spares) {
+            session.release(spare);
+        }
+        for (int i = 0; i < ServiceCache.MAX_SPARES; i++) {
+            assertFalse(retired(spares.get(i)));
+        }
+        assertTrue(retired(spares.get(ServiceCache.MAX_SPARES)));
+    }
+
+    @Test
+    public void testReplacedRetired() throws Exception {
+        String clientkey = UUID.randomUUID().toString();
+        ServiceCache.Session first = ServiceCache.get(clientkey, "old", () -> session("old", new int[1]));
+        Service spare = first.borrow();
+        Service idle = first.borrow();
+        first.release(idle);
+        ServiceCache.get(clientkey, "new", () -> session("new", new int[1]));
+        assertTrue(retired(first.getService()));
+        assertTrue(retired(idle));
+        assertFalse(retired(spare));
+        first.release(spare);
+        assertTrue(retired(spare));
+    }
+
+}
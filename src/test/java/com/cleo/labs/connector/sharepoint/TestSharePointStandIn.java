@@ -0,0 +1,579 @@
+package com.cleo.labs.connector.sharepoint;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.cleo.connector.api.ConnectorClient;
+import com.cleo.connector.api.ConnectorException;
+import com.cleo.connector.api.command.ConnectorCommandOption;
+import com.cleo.connector.api.command.ConnectorCommandResult;
+import com.cleo.connector.api.command.ConnectorCommandResult.Status;
+import com.cleo.connector.api.directory.Entry;
+import com.cleo.labs.connector.testing.Commands;
+import com.cleo.labs.connector.testing.StringCollector;
+import com.cleo.labs.connector.testing.StringSource;
+import com.cleo.labs.connector.testing.TestConnectorClient;
+import com.independentsoft.share.Service;
+import com.independentsoft.share.ServiceException;
+
+/**
+ * Runs the connector against a {@link SharePointStandIn} instead of a live
+ * SharePoint site.
+ */
+public class TestSharePointStandIn {
+
+    public static class StandInValues {
+        public static String SharePointURL;
+        public static final String UserName = "user@standin";
+        public static final String Password = "password";
+    }
+
+    /**
+     * Settings that spool every upload, overwrite without checking first
+     * and retry throttled requests quickly.
+     */
+    private static final String[] SPOOL = {"UploadSpoolThreshold", "1", "OptimisticPut", "true", "ThrottleRetryDelay", "10"};
+
+    private static SharePointStandIn standIn;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        standIn = new SharePointStandIn();
+        StandInValues.SharePointURL = standIn.getUrl();
+        assumeFalse("the jshare evaluation jar has expired and refuses all requests", expired());
+    }
+
+    /**
+     * Returns whether the jshare jar on the class path is an expired
+     * evaluation build, which fails every request before sending it.
+     */
+    private static boolean expired() {
+        try {
+            new Service(standIn.getUrl(), StandInValues.UserName, StandInValues.Password).getSite();
+            return false;
+        } catch (ServiceException e) {
+            return String.valueOf(e.getMessage()).toLowerCase().contains("evaluation version has expired");
+        }
+    }
+
+    @AfterClass
+    public static void stop() {
+        standIn.close();
+    }
+
+    /**
+     * Returns a client for the stand-in, with property settings given in
+     * name and value pairs on top of {@link StandInValues}.
+     *
+     * @param settings property names, each followed by its value
+     * @return the client
+     * @throws Exception
+     */
+    private static ConnectorClient client(String...settings) throws Exception {
+        TestConnectorClient.Builder builder = TestConnectorClient.of(SharePointConnectorSchema.class)
+                .logger(System.err)
+                .debug(true)
+                .values(StandInValues.class);
+        for (int i = 0; i+1 < settings.length; i += 2) {
+            builder.set(settings[i], settings[i+1]);
+        }
+        return builder.build();
+    }
+
+    private static String folder() {
+        String folder = SharePointStandIn.LIBRARY+"/"+UUID.randomUUID().toString();
+        standIn.putFolder(folder);
+        return folder;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ConnectorClient client = client();
+        ConnectorCommandResult result;
+        String folder = folder();
+        String path = folder+"/test.txt";
+
+        StringSource source = new StringSource("test.txt", StringSource.lorem);
+        result = Commands.put(source, path).go(client);
+        assertEquals(Status.Success, result.getStatus());
+        assertArrayEquals(StringSource.lorem.getBytes(StandardCharsets.UTF_8), standIn.getFile(path));
+
+        BasicFileAttributeView attr = Commands.attr(path).go(client);
+        assertTrue(attr.readAttributes().isRegularFile());
+        assertEquals(StringSource.lorem.length(), attr.readAttributes().size());
+
+        StringCollector destination = new StringCollector().name("test.txt");
+        result = Commands.get(path, destination).go(client);
+        assertEquals(Status.Success, result.getStatus());
+        assertEquals(StringSource.lorem, destination.toString());
+
+        result = Commands.delete(path).go(client);
+        assertEquals(Status.Success, result.getStatus());
+        assertFalse(standIn.exists(path));
+    }
+
+    @Test
+    public void testDir() throws Exception {
+        ConnectorClient client = client();
+        String folder = folder();
+        standIn.putFile(folder+"/a.txt", "a".getBytes(StandardCharsets.UTF_8));
+        standIn.putFile(folder+"/b.txt", "bb".getBytes(StandardCharsets.UTF_8));
+        standIn.putFolder(folder+"/sub");
+
+        ConnectorCommandResult result = Commands.dir(folder).go(client);
+        assertEquals(Status.Success, result.getStatus());
+        List<Entry> entries = result.getDirEntries().orElse(Collections.emptyList());
+        assertEquals(3, entries.size());
+        assertEquals(1, entries.stream().filter((e) -> e.isDir()).count());
+    }
+
+    @Test
+    public void testDirPaged() throws Exception {
+        ConnectorClient client = client("DirPageSize", "2");
+        String folder = folder();
+        // 2 folders and 4 files fill their last pages exactly, 5 files leave one over
+        for (int files : new int[] {4, 5}) {
+            String paged = folder+"/paged"+files;
+            standIn.putFolder(paged+"/sub0");
+            standIn.putFolder(paged+"/sub1");
+            for (int i = 0; i < files; i++) {
+                standIn.putFile(paged+"/file"+i+".txt", "x".getBytes(StandardCharsets.UTF_8));
+            }
+
+            ConnectorCommandResult result = Commands.dir(paged).go(client);
+            assertEquals(Status.Success, result.getStatus());
+            List<String> names = result.getDirEntries().orElse(Collections.emptyList()).stream()
+                    .map((e) -> e.getPath().substring(paged.length()+1))
+                    .collect(Collectors.toList());
+            List<String> expected = new ArrayList<>(Arrays.asList("sub0", "sub1"));
+            for (int i = 0; i < files; i++) {
+                expected.add("file"+i+".txt");
+            }
+            assertEquals(expected, names);
+        }
+    }
+
+    @Test
+    public void testDirRecursive() throws Exception {
+        ConnectorClient client = client("DirRecursive", "true");
+        String folder = folder();
+        standIn.putFile(folder+"/a.txt", "a".getBytes(StandardCharsets.UTF_8));
+        standIn.putFile(folder+"/sub/b.txt", "bb".getBytes(StandardCharsets.UTF_8));
+        standIn.putFile(folder+"/sub/deeper/c.txt", "ccc".getBytes(StandardCharsets.UTF_8));
+        standIn.putFolder(folder+"/empty");
+
+        ConnectorCommandResult result = Commands.dir(folder).go(client);
+        assertEquals(Status.Success, result.getStatus());
+        List<Entry> entries = result.getDirEntries().orElse(Collections.emptyList());
+        List<String> names = entries.stream()
+                .map((e) -> e.getPath().substring(folder.length()+1)+(e.isDir() ? "/" : ""))
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList("a.txt", "empty/", "sub/", "sub/b.txt", "sub/deeper/", "sub/deeper/c.txt"), names);
+        assertEquals(3, entries.stream().filter((e) -> e.getPath().endsWith("c.txt")).findFirst().get().getSize());
+    }
+
+    @Test
+    public void testDirDelta() throws Exception {
+        ConnectorClient client = client("DirDelta", "true");
+        String folder = folder();
+        standIn.putFile(folder+"/a.txt", "a".getBytes(StandardCharsets.UTF_8));
+
+        // the first token is backdated for clock skew, so the second DIR sees a.txt and lists again
+        List<Entry> first = Commands.dir(folder).go(client).getDirEntries().orElse(Collections.emptyList());
+        List<Entry> second = Commands.dir(folder).go(client).getDirEntries().orElse(Collections.emptyList());
+        assertEquals(1, first.size());
+        assertEquals(1, second.size());
+        assertNotSame(first.get(0), second.get(0));
+
+        // the token rolled forward to the last change, so nothing has changed since
+        List<Entry> third = Commands.dir(folder).go(client).getDirEntries().orElse(Collections.emptyList());
+        assertEquals(1, third.size());
+        assertSame(second.get(0), third.get(0));
+
+        standIn.putFile(folder+"/b.txt", "b".getBytes(StandardCharsets.UTF_8));
+        List<Entry> fourth = Commands.dir(folder).go(client).getDirEntries().orElse(Collections.emptyList());
+        assertEquals(2, fourth.size());
+        assertTrue(fourth.stream().anyMatch((e) -> e.getPath().endsWith("/b.txt")));
+    }
+
+    @Test
+    public void testMkdirRoundTrip() throws Exception {
+        ConnectorClient client = client();
+        ConnectorCommandResult result;
+        String path = SharePointStandIn.LIBRARY+"/"+UUID.randomUUID().toString();
+
+        result = Commands.mkdir(path).go(client);
+        assertEquals(Status.Success, result.getStatus());
+        assertTrue(standIn.exists(path));
+        result = Commands.dir(path).go(client);
+        assertEquals(Status.Success, result.getStatus());
+        assertTrue(result.getDirEntries().orElse(Collections.emptyList()).isEmpty());
+        result = Commands.rmdir(path).go(client);
+        assertEquals(Status.Success, result.getStatus());
+        assertFalse(standIn.exists(path));
+    }
+
+    @Test
+    public void testPutUnique() throws Exception {
+        ConnectorClient client = client();
+        String folder = folder();
+        for (int i = 0; i < 3; i++) {
+            StringSource source = new StringSource("test.txt", StringSource.lorem);
+            ConnectorCommandResult result = Commands.put(source, folder+"/test.txt")
+                    .option(ConnectorCommandOption.Unique)
+                    .go(client);
+            assertEquals(Status.Success, result.getStatus());
+        }
+        assertTrue(standIn.exists(folder+"/test.txt"));
+        assertTrue(standIn.exists(folder+"/test.1.txt"));
+        assertTrue(standIn.exists(folder+"/test.2.txt"));
+    }
+
+    @Test
+    public void testPutUniqueStale() throws Exception {
+        ConnectorClient client = client("AttrPrefetchLimit", "100");
+        String folder = folder();
+        standIn.putFile(folder+"/test.txt", "a".getBytes(StandardCharsets.UTF_8));
+        Commands.put(new StringSource("test.txt", "b"), folder+"/test.txt").option(ConnectorCommandOption.Unique).go(client);
+        assertTrue(standIn.exists(folder+"/test.1.txt"));
+
+        // taken behind the cached listing, so the next name is found by listing again
+        standIn.putFile(folder+"/test.2.txt", "c".getBytes(StandardCharsets.UTF_8));
+        ConnectorCommandResult result = Commands.put(new StringSource("test.txt", "d"), folder+"/test.txt")
+                .option(ConnectorCommandOption.Unique)
+                .go(client);
+        assertEquals(Status.Success, result.getStatus());
+        assertEquals("c", new String(standIn.getFile(folder+"/test.2.txt"), StandardCharsets.UTF_8));
+        assertEquals("d", new String(standIn.getFile(folder+"/test.3.txt"), StandardCharsets.UTF_8));
+
+        // an update keeps the listing, with the new attributes
+        Commands.put(new StringSource("test.txt", "longer"), folder+"/test.txt").go(client);
+        long requests = standIn.getRequestCount();
+        assertEquals(6, Commands.attr(folder+"/test.txt").go(client).readAttributes().size());
+        assertEquals(requests, standIn.getRequestCount());
+    }
+
+    @Test
+    public void testAttrProbes() throws Exception {
+        ConnectorClient client = client("AttrPrefetchLimit", "0");
+        String folder = folder();
+        standIn.putFile(folder+"/a.txt", "a".getBytes(StandardCharsets.UTF_8));
+        standIn.putFolder(folder+"/sub");
+        Commands.dir(SharePointStandIn.LIBRARY).go(client);
+
+        // the file and folder probes are sent together, so a folder costs one round trip, not two
+        standIn.latency(500);
+        try {
+            long start = System.currentTimeMillis();
+            assertTrue(Commands.attr(folder+"/sub").go(client).readAttributes().isDirectory());
+            assertTrue(System.currentTimeMillis()-start < 900);
+            start = System.currentTimeMillis();
+            assertTrue(Commands.attr(folder+"/a.txt").go(client).readAttributes().isRegularFile());
+            assertTrue(System.currentTimeMillis()-start < 900);
+        } finally {
+            standIn.latency(0);
+        }
+    }
+
+    @Test
+    public void testPutSpoolRetry() throws Exception {
+        ConnectorClient client = client(SPOOL);
+        String folder = folder();
+        String path = folder+"/large.txt";
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 1024 * 1024) {
+            content.append(StringSource.lorem);
+        }
+
+        // the first upload is throttled and sent again from the spool
+        standIn.throttle(1, 0);
+        StringSource source = new StringSource("large.txt", content.toString());
+        ConnectorCommandResult result = Commands.put(source, path).go(client);
+        assertEquals(Status.Success, result.getStatus());
+        assertArrayEquals(content.toString().getBytes(StandardCharsets.UTF_8), standIn.getFile(path));
+    }
+
+    @Test
+    public void testGetSegmented() throws Exception {
+        ConnectorClient client = client("DownloadSegmentSize", "1", "DownloadParallelism", "2");
+        String folder = folder();
+        String path = folder+"/large.txt";
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 2500 * 1024) {
+            content.append(StringSource.lorem);
+        }
+        standIn.putFile(path, content.toString().getBytes(StandardCharsets.UTF_8));
+
+        StringCollector destination = new StringCollector().name("large.txt");
+        ConnectorCommandResult result = Commands.get(path, destination).go(client);
+        assertEquals(Status.Success, result.getStatus());
+        assertEquals(content.toString(), destination.toString());
+
+        // a server ignoring Range sends the whole file, which is read as is
+        standIn.ranges(false);
+        try {
+            destination = new StringCollector().name("large.txt");
+            long requests = standIn.getRequestCount();
+            result = Commands.get(path, destination).go(client);
+            assertEquals(Status.Success, result.getStatus());
+            assertEquals(content.toString(), destination.toString());
+            assertEquals(1, standIn.getRequestCount()-requests);
+        } finally {
+            standIn.ranges(true);
+        }
+    }
+
+    @Test
+    public void testPutOptimisticFallback() throws Exception {
+        String folder = folder();
+        StringBuilder large = new StringBuilder();
+        while (large.length() < 1024 * 1024) {
+            large.append(StringSource.lorem);
+        }
+        standIn.putFile(folder+"/small.txt", "old".getBytes(StandardCharsets.UTF_8));
+        standIn.putFile(folder+"/large.txt", "old".getBytes(StandardCharsets.UTF_8));
+
+        // the overwrites are refused, so both PUTs update the existing files instead
+        standIn.conflicts(true);
+        try {
+            ConnectorCommandResult result = Commands.put(new StringSource("small.txt", StringSource.lorem), folder+"/small.txt")
+                    .go(client("OptimisticPut", "true"));
+            assertEquals(Status.Success, result.getStatus());
+            result = Commands.put(new StringSource("large.txt", large.toString()), folder+"/large.txt")
+                    .go(client(SPOOL));
+            assertEquals(Status.Success, result.getStatus());
+        } finally {
+            standIn.conflicts(false);
+        }
+        assertArrayEquals(StringSource.lorem.getBytes(StandardCharsets.UTF_8), standIn.getFile(folder+"/small.txt"));
+        assertArrayEquals(large.toString().getBytes(StandardCharsets.UTF_8), standIn.getFile(folder+"/large.txt"));
+    }
+
+    @Test
+    public void testDeleteWildcard() throws Exception {
+        ConnectorClient client = client();
+        String folder = folder();
+        for (int i = 0; i < 12; i++) {
+            standIn.putFile(folder+"/file"+i+".txt", "x".getBytes(StandardCharsets.UTF_8));
+        }
+        standIn.putFile(folder+"/keep.dat", "x".getBytes(StandardCharsets.UTF_8));
+
+        ConnectorCommandResult result = Commands.delete(folder+"/*.TXT").go(client);
+        assertEquals(Status.Success, result.getStatus());
+        for (int i = 0; i < 12; i++) {
+            assertFalse(standIn.exists(folder+"/file"+i+".txt"));
+        }
+        assertTrue(standIn.exists(folder+"/keep.dat"));
+
+        try {
+            Commands.delete(folder+"/*.txt").go(client);
+            fail("no files should match");
+        } catch (ConnectorException e) {
+            assertEquals(ConnectorException.Category.fileNonExistentOrNoAccess, e.getCategory().orElse(null));
+        }
+    }
+
+    @Test
+    public void testGetDelete() throws Exception {
+        ConnectorClient client = client();
+        String folder = folder();
+        String path = folder+"/test.txt";
+        standIn.putFile(path, StringSource.lorem.getBytes(StandardCharsets.UTF_8));
+
+        StringCollector destination = new StringCollector().name("test.txt");
+        ConnectorCommandResult result = Commands.get(path, destination)
+                .option(ConnectorCommandOption.Delete)
+                .go(client);
+        assertEquals(Status.Success, result.getStatus());
+        assertEquals(StringSource.lorem, destination.toString());
+        assertFalse(standIn.exists(path));
+    }
+
+    @Test
+    public void testGetDeleteReadAhead() throws Exception {
+        ConnectorClient client = client("DownloadReadAhead", "2");
+        String folder = folder();
+        standIn.putFile(folder+"/a.txt", "a".getBytes(StandardCharsets.UTF_8));
+        standIn.putFile(folder+"/b.txt", "b".getBytes(StandardCharsets.UTF_8));
+        Commands.dir(folder).go(client);
+
+        StringCollector destination = new StringCollector().name("a.txt");
+        Commands.get(folder+"/a.txt", destination).option(ConnectorCommandOption.Delete).go(client);
+        assertEquals("a", destination.toString());
+
+        // b.txt was read ahead, then replaced with the same size a second later (the
+        // resolution of modification times): the GET must not deliver the old content and delete the new
+        Thread.sleep(1100);
+        standIn.putFile(folder+"/b.txt", "c".getBytes(StandardCharsets.UTF_8));
+        destination = new StringCollector().name("b.txt");
+        ConnectorCommandResult result = Commands.get(folder+"/b.txt", destination)
+                .option(ConnectorCommandOption.Delete)
+                .go(client);
+        assertEquals(Status.Success, result.getStatus());
+        assertEquals("c", destination.toString());
+        assertFalse(standIn.exists(folder+"/b.txt"));
+    }
+
+    @Test
+    public void testRenameFile() throws Exception {
+        ConnectorClient client = client();
+        String folder = folder();
+        standIn.putFile(folder+"/a.txt", "a".getBytes(StandardCharsets.UTF_8));
+        standIn.putFolder(folder+"/other");
+        Commands.dir(folder).go(client);
+
+        long requests = standIn.getRequestCount();
+        ConnectorCommandResult result = Commands.rename(folder+"/a.txt", folder+"/other/b.txt").go(client);
+        assertEquals(Status.Success, result.getStatus());
+        assertEquals(1, standIn.getRequestCount()-requests);
+        assertFalse(standIn.exists(folder+"/a.txt"));
+        assertArrayEquals("a".getBytes(StandardCharsets.UTF_8), standIn.getFile(folder+"/other/b.txt"));
+        assertEquals(1, Commands.attr(folder+"/other/b.txt").go(client).readAttributes().size());
+
+        try {
+            Commands.rename(folder+"/a.txt", folder+"/c.txt").go(client);
+            fail("this file should not exist");
+        } catch (ConnectorException e) {
+            assertEquals(ConnectorException.Category.fileNonExistentOrNoAccess, e.getCategory().orElse(null));
+        }
+    }
+
+    @Test
+    public void testRenameFolder() throws Exception {
+        ConnectorClient client = client();
+        String folder = folder();
+        standIn.putFile(folder+"/tree/a.txt", "a".getBytes(StandardCharsets.UTF_8));
+        standIn.putFile(folder+"/tree/sub/b.txt", "b".getBytes(StandardCharsets.UTF_8));
+        standIn.putFolder(folder+"/tree/sub/empty");
+        standIn.putFolder(folder+"/other");
+
+        ConnectorCommandResult result = Commands.rename(folder+"/tree", folder+"/other/moved").go(client);
+        assertEquals(Status.Success, result.getStatus());
+        assertFalse(standIn.exists(folder+"/tree"));
+        assertArrayEquals("a".getBytes(StandardCharsets.UTF_8), standIn.getFile(folder+"/other/moved/a.txt"));
+        assertArrayEquals("b".getBytes(StandardCharsets.UTF_8), standIn.getFile(folder+"/other/moved/sub/b.txt"));
+        assertTrue(standIn.exists(folder+"/other/moved/sub/empty"));
+
+        try {
+            Commands.rename(folder+"/other/moved", folder+"/other").go(client);
+            fail("the destination exists");
+        } catch (ConnectorException e) {
+            assertTrue(standIn.exists(folder+"/other/moved/a.txt"));
+        }
+
+        // refused before any request is sent
+        long requests = standIn.getRequestCount();
+        for (String[] names : new String[][] {
+                {folder+"/other", folder+"/other/moved/inside"},
+                {folder+"/other", folder+"/OTHER/moved/inside"},
+                {SharePointStandIn.LIBRARY, folder+"/library"},
+                {folder+"/other", "."}}) {
+            try {
+                Commands.rename(names[0], names[1]).go(client);
+                fail("'"+names[0]+"' can not be renamed to '"+names[1]+"'");
+            } catch (ConnectorException e) {
+                assertEquals(requests, standIn.getRequestCount());
+            }
+        }
+        assertTrue(standIn.exists(folder+"/other/moved/a.txt"));
+    }
+
+    @Test
+    public void testRmdirLargeTree() throws Exception {
+        ConnectorClient client = client();
+        String folder = folder();
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 3; j++) {
+                standIn.putFile(folder+"/tree/sub"+i+"/deeper/file"+j+".txt", "x".getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        Commands.attr(folder+"/tree/sub0/deeper/file0.txt").go(client);
+
+        // the site and libraries are refused outright
+        long requests = standIn.getRequestCount();
+        for (String name : new String[] {".", "", SharePointStandIn.LIBRARY}) {
+            try {
+                Commands.rmdir(name).go(client);
+                fail("'"+name+"' can not be deleted");
+            } catch (ConnectorException e) {
+                assertEquals(requests, standIn.getRequestCount());
+            }
+        }
+
+        // any other refusal fails without deleting piecemeal
+        standIn.throttle(6, -1);
+        try {
+            Commands.rmdir(folder+"/tree").go(client(SPOOL));
+            fail("the delete should be throttled");
+        } catch (ConnectorException e) {
+            assertTrue(standIn.exists(folder+"/tree/sub0/deeper/file0.txt"));
+        } finally {
+            standIn.throttle(0, -1);
+        }
+
+        standIn.threshold(5);
+        try {
+            ConnectorCommandResult result = Commands.rmdir(folder+"/tree").go(client);
+            assertEquals(Status.Success, result.getStatus());
+        } finally {
+            standIn.threshold(Integer.MAX_VALUE);
+        }
+        assertFalse(standIn.exists(folder+"/tree"));
+        try {
+            Commands.attr(folder+"/tree/sub0/deeper/file0.txt").go(client);
+            fail("the tree should be gone");
+        } catch (ConnectorException e) {
+            assertEquals(ConnectorException.Category.fileNonExistentOrNoAccess, e.getCategory().orElse(null));
+        }
+    }
+
+    @Test
+    public void testThrottled() throws Exception {
+        ConnectorClient client = client();
+        String folder = folder();
+        String path = folder+"/test.txt";
+        standIn.putFile(path, StringSource.lorem.getBytes(StandardCharsets.UTF_8));
+
+        standIn.throttle(2, 0);
+        StringCollector destination = new StringCollector().name("test.txt");
+        ConnectorCommandResult result = Commands.get(path, destination).go(client);
+        assertEquals(Status.Success, result.getStatus());
+        assertEquals(StringSource.lorem, destination.toString());
+    }
+
+    @Test(timeout = 30000)
+    public void testMissing() throws Exception {
+        ConnectorClient client = client();
+        String folder = folder();
+        // each miss is a 404, whose response jshare never closes: this hangs if its connection is not released
+        for (int i = 0; i < 20; i++) {
+            try {
+                Commands.attr(folder+"/nowhere/missing"+i+".txt").go(client);
+                fail("this file should not exist");
+            } catch (ConnectorException e) {
+                assertEquals(ConnectorException.Category.fileNonExistentOrNoAccess, e.getCategory().orElse(null));
+            }
+        }
+    }
+
+}
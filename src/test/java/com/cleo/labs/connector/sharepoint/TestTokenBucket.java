@@ -0,0 +1,73 @@
+package com.cleo.labs.connector.sharepoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TestTokenBucket {
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    @Test
+    public void testUnlimited() {
+        TokenBucket bucket = new TokenBucket();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, bucket.reserve());
+        }
+        bucket.configure(0, 10);
+        assertEquals(0, bucket.reserve());
+    }
+
+    @Test
+    public void testBurstThenRate() {
+        TokenBucket bucket = new TokenBucket().configure(10, 5);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.reserve());
+        }
+        // each further request waits one more interval of 100ms
+        long first = millis(bucket.reserve());
+        long second = millis(bucket.reserve());
+        assertTrue(first > 50 && first <= 100);
+        assertTrue(second > 150 && second <= 200);
+    }
+
+    @Test
+    public void testReconfigure() {
+        TokenBucket bucket = new TokenBucket().configure(1000, 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, bucket.reserve());
+        }
+        assertTrue(bucket.reserve() > 0);
+        bucket.configure(0, 100);
+        assertEquals(0, bucket.reserve());
+        // limited again, starting with a full bucket
+        bucket.configure(1, 2);
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        assertTrue(millis(bucket.reserve()) > 900);
+    }
+
+    @Test
+    public void testShared() {
+        assertTrue(TokenBucket.of("testShared") == TokenBucket.of("testShared"));
+        assertTrue(TokenBucket.of("testShared") != TokenBucket.of("testShared2"));
+    }
+
+    @Test
+    public void testAcquire() throws Exception {
+        TokenBucket bucket = new TokenBucket().configure(50, 1);
+        long start = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            bucket.acquire();
+        }
+        long elapsed = millis(System.nanoTime() - start);
+        assertTrue("elapsed "+elapsed, elapsed >= 90);
+        assertEquals(5, bucket.getWaitCount());
+    }
+
+}
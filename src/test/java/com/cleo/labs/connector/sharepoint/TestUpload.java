@@ -0,0 +1,97 @@
+package com.cleo.labs.connector.sharepoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.independentsoft.share.ServiceException;
+
+public class TestUpload {
+
+    private static final byte[] CONTENT = "content".getBytes(StandardCharsets.UTF_8);
+
+    private static ServiceException failure(String message) {
+        return new ServiceException(message, null, "url");
+    }
+
+    /**
+     * A sender that fails the first {@code failures} attempts, recording
+     * the content and retry flag of each.
+     */
+    private static class Failing implements Upload.Sender<String> {
+        private int failures;
+        private final List<String> sent = new ArrayList<>();
+
+        private Failing(int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public String send(InputStream in, boolean retry) throws ServiceException {
+            try {
+                sent.add(IOUtils.toString(in, StandardCharsets.UTF_8)+(retry ? " again" : ""));
+            } catch (IOException e) {
+                throw new ServiceException(e.getMessage(), e, "url");
+            }
+            if (failures-- > 0) {
+                throw failure("503 Service Unavailable");
+            }
+            return "ok";
+        }
+    }
+
+    @Test
+    public void testFirstAttempt() throws Exception {
+        Failing sender = new Failing(0);
+        assertEquals("ok", Upload.send(() -> new ByteArrayInputStream(CONTENT), sender,
+                (e) -> false, (e, attempt) -> false, (m) -> { }));
+        assertEquals(1, sender.sent.size());
+    }
+
+    @Test
+    public void testBackoff() throws Exception {
+        Failing sender = new Failing(2);
+        List<Integer> attempts = new ArrayList<>();
+        int[] opened = {0};
+        assertEquals("ok", Upload.send(() -> {
+            opened[0]++;
+            return new ByteArrayInputStream(CONTENT);
+        }, sender, (e) -> false, (e, attempt) -> attempts.add(attempt), (m) -> { }));
+        assertEquals(3, opened[0]);
+        assertEquals("[content, content again, content again]", sender.sent.toString());
+        assertEquals("[0, 1]", attempts.toString());
+    }
+
+    @Test
+    public void testAgainBeforeBackoff() throws Exception {
+        Failing sender = new Failing(1);
+        int[] backoffs = {0};
+        Upload.send(() -> new ByteArrayInputStream(CONTENT), sender, (e) -> true, (e, attempt) -> ++backoffs[0] > 0, (m) -> { });
+        assertEquals(2, sender.sent.size());
+        assertEquals(0, backoffs[0]);
+    }
+
+    @Test
+    public void testGivesUp() throws Exception {
+        Failing sender = new Failing(5);
+        List<String> messages = new ArrayList<>();
+        try {
+            Upload.send(() -> new ByteArrayInputStream(CONTENT), sender, (e) -> false, (e, attempt) -> attempt < 2, messages::add);
+            fail("the last failure should be thrown");
+        } catch (ServiceException e) {
+            assertEquals("503 Service Unavailable", e.getMessage());
+        }
+        assertEquals(3, sender.sent.size());
+        assertEquals(2, messages.size());
+    }
+
+}
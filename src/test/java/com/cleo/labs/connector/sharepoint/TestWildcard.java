@@ -0,0 +1,43 @@
+package com.cleo.labs.connector.sharepoint;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class TestWildcard {
+
+    @Test
+    public void testIsWildcard() {
+        assertTrue(Wildcard.isWildcard("*.txt"));
+        assertTrue(Wildcard.isWildcard("file?.txt"));
+        assertFalse(Wildcard.isWildcard("file.txt"));
+        assertFalse(Wildcard.isWildcard(""));
+    }
+
+    @Test
+    public void testCompile() {
+        Pattern p = Wildcard.compile("*.txt");
+        assertTrue(p.matcher("a.txt").matches());
+        assertTrue(p.matcher(".txt").matches());
+        assertTrue(p.matcher("A.TXT").matches());
+        assertFalse(p.matcher("a.txt.bak").matches());
+        assertFalse(p.matcher("atxt").matches());
+
+        p = Wildcard.compile("file?.dat");
+        assertTrue(p.matcher("file1.dat").matches());
+        assertFalse(p.matcher("file.dat").matches());
+        assertFalse(p.matcher("file12.dat").matches());
+    }
+
+    @Test
+    public void testLiterals() {
+        Pattern p = Wildcard.compile("a+b(1)[x]\\E*");
+        assertTrue(p.matcher("a+b(1)[x]\\E").matches());
+        assertTrue(p.matcher("a+b(1)[x]\\E.txt").matches());
+        assertFalse(p.matcher("aab(1)x\\E").matches());
+    }
+
+}
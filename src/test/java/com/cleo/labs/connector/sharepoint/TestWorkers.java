@@ -0,0 +1,56 @@
+package com.cleo.labs.connector.sharepoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TestWorkers {
+
+    @Test(timeout = 10000)
+    public void testBlockedTasksDoNotStarve() throws Exception {
+        // every task waits for all the others, which only works if blocked workers are compensated
+        int tasks = Workers.DEFAULT_PARALLELISM * 3;
+        CountDownLatch started = new CountDownLatch(tasks);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            futures.add(Workers.submit(() -> {
+                started.countDown();
+                return started.await(5, TimeUnit.SECONDS);
+            }));
+        }
+        for (Future<Boolean> future : futures) {
+            assertTrue(Workers.get(future));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSubmitAllIsBounded() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger most = new AtomicInteger();
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < Workers.DEFAULT_PARALLELISM * 5; i++) {
+            int n = i;
+            tasks.add(() -> {
+                most.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(10);
+                running.decrementAndGet();
+                return n;
+            });
+        }
+        List<Future<Integer>> futures = Workers.submitAll(tasks);
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, Workers.get(futures.get(i)).intValue());
+        }
+        assertTrue(most.get() <= Workers.DEFAULT_PARALLELISM);
+    }
+
+}
@@ -1,6 +1,8 @@
 package com.cleo.labs.connector.testing;
 
 import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import com.cleo.connector.api.ConnectorClient;
 import com.cleo.connector.api.ConnectorConfig;
@@ -18,6 +20,7 @@ public class TestConnectorClient {
         private Class<?> schemaValues = null;
         private PrintStream logger = NULL_PRINT_STREAM;
         private boolean debug = false;
+        private Map<String,String> settings = new LinkedHashMap<>();
         public Builder(Class<? extends ConnectorConfig> schemaClass) {
             this.schemaClass = schemaClass;
         }
@@ -25,6 +28,10 @@ public class TestConnectorClient {
             this.schemaValues = schemaValues;
             return this;
         }
+        public Builder set(String key, String value) {
+            this.settings.put(key, value);
+            return this;
+        }
         public Builder debug(boolean debug) {
             this.debug = debug;
             return this;
@@ -45,6 +52,9 @@ public class TestConnectorClient {
             if (schemaValues != null) {
                 connector.set(schemaValues);
             }
+            for (Map.Entry<String,String> setting : settings.entrySet()) {
+                connector.set(setting.getKey(), setting.getValue());
+            }
             client.setup(connector, schema, connectorHost);
             return client;
         }